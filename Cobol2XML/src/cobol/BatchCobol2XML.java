@@ -0,0 +1,680 @@
+/*
+ * @(#)BatchCobol2XML.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import parse.Assembly;
+import parse.AssemblyInterner;
+import parse.Beam;
+import parse.GrammarCompiler;
+import parse.HandleGrammarCompiler;
+import parse.Parser;
+import parse.ParserStats;
+import parse.tokens.CompositeTokenString;
+import parse.tokens.ExactNumberState;
+import parse.tokens.FixedFormatReader;
+import parse.tokens.LexemeArena;
+import parse.tokens.PackedTokenAssembly;
+import parse.tokens.Token;
+import parse.tokens.TokenAssembly;
+import parse.tokens.TokenString;
+import parse.tokens.Tokenizer;
+import utensil.FileString;
+import xmlwriter.CobolPayload;
+import xmlwriter.XMLPayload;
+import xmlwriter.XMLStreamPayload;
+
+/**
+ * BatchCobol2XML converts many COBOL programs to XML at once.
+ * <p>
+ * The inputs are either every COBOL source under a directory or the
+ * files named, one per line, in a list file given as
+ * <code>@list</code>. Each is converted to a file of the same
+ * relative name, with the extension <code>.xml</code>, under the
+ * output directory; listed files keep only their own names. Inputs
+ * that would share an output file fail rather than overwrite one
+ * another.
+ * <p>
+ * Conversions run as tasks on a work-stealing
+ * <code>ForkJoinPool</code>, one per processor by default. Each task
+ * has its own tokenizer and payload; all tasks match against the one
+ * frozen grammar, which keeps no state of its own. A semaphore
+ * limits how many tasks may write their output at once; when the
+ * disk falls behind, conversions wait for it rather than piling
+ * finished documents up in memory.
+ * <p>
+ * With <code>-stream</code>, each document is written as it is
+ * parsed, by an <code>XMLStreamPayload</code>, instead of being built
+ * in memory first; there is then nothing to hold back, and the write
+ * limit does not apply.
+ * <p>
+ * With <code>-fixed</code>, sources are read as fixed-format COBOL,
+ * through a <code>FixedFormatReader</code>: sequence and
+ * identification areas and comment lines are dropped, and
+ * continuation lines are joined before the text is parsed.
+ * <p>
+ * With <code>-copy</code>, COPY statements are expanded from the
+ * copybooks in the given directories, separated as the platform
+ * separates paths. Each copybook is tokenized once for the whole
+ * batch. A program is then parsed a sentence at a time, after
+ * expansion, by a <code>SentencePipeline</code>, rather than a line
+ * at a time.
+ * <p>
+ * Each output is written to a temporary file beside it and renamed
+ * into place once complete, so an interrupted batch never leaves a
+ * partial document behind. With <code>-journal file</code>, each
+ * completed conversion is recorded in a <code>ConversionJournal</code>,
+ * and inputs that the journal shows to be converted already, by the
+ * same grammar and with the same options, and unchanged since, are
+ * skipped; a batch that stops partway can be run again with the same
+ * journal to finish it. With <code>-copy</code>, every input is
+ * converted, since the journal does not record a program's
+ * copybooks.
+ * <p>
+ * With <code>-cache dir</code>, the XML made from each program is kept
+ * in a <code>ConversionCache</code> under that directory, keyed by a
+ * hash of the program's bytes, the grammar version and the options
+ * that change the output. A program converted before is copied from
+ * the cache rather than parsed. The cache is not used with
+ * <code>-copy</code>, since a program's copybooks may change when it
+ * does not.
+ * <p>
+ * With <code>-exact</code>, numeric literals are lexed exactly, as
+ * <code>DecimalToken</code>s, by an <code>ExactNumberState</code>.
+ * With <code>-slice</code>, words are sliced from a
+ * <code>LexemeArena</code> rather than copied into Strings, so only
+ * the words an assembler reads are ever made into one. With
+ * <code>-packed</code>, each line's tokens are held in the columns of
+ * a <code>PackedTokenString</code>, which terminals match without
+ * building a token for each one they test; with <code>-copy</code>,
+ * so is each window of sentences.
+ * <p>
+ * With <code>-beam n</code>, the grammar's alternations and
+ * repetitions keep at most <i>n</i> assemblies alive; see
+ * <code>Beam</code>. With <code>-dedupe</code>, they drop assemblies
+ * in the same state as another; see <code>AssemblyInterner</code>.
+ * Their counts are printed after the summary.
+ * <p>
+ * With <code>-compile</code>, the grammar is compiled by a
+ * <code>GrammarCompiler</code> and matched by the
+ * <code>CompiledParser</code> it makes, which returns what the
+ * grammar would. With <code>-handles</code>, it is compiled instead
+ * by a <code>HandleGrammarCompiler</code> into a tree of method
+ * handles. The two cannot be given together.
+ * <p>
+ * Run with <code>-Dparse.stats=true</code>, the grammar's productions
+ * are counted and timed, and their counts printed after the summary;
+ * see <code>ParserStats</code>.
+ * <p>
+ * Usage:
+ * <pre>
+ *     BatchCobol2XML (inputDir | @listFile) outputDir
+ *         [-threads n] [-writers n] [-charset name] [-stream] [-fixed]
+ *         [-copy dir:dir...] [-exact] [-slice] [-packed] [-beam n] [-dedupe] [-compile] [-handles]
+ *         [-journal file] [-cache dir]
+ * </pre>
+ */
+public class BatchCobol2XML {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchCobol2XML.class.getName());
+
+    /*
+     * The file name extensions taken to be COBOL sources
+     */
+    protected static final String[] SOURCE_EXTENSIONS = { ".cbl", ".cob", ".cobol" };
+
+    /*
+     * The number of inputs a task converts without splitting further
+     */
+    protected static final int LEAF_SIZE = 1;
+
+    protected int threads = Runtime.getRuntime().availableProcessors();
+    protected int writers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    protected String charsetName = Charset.defaultCharset().name();
+    protected boolean streaming;
+    protected boolean fixedFormat;
+    protected CopybookLibrary copybooks;
+    protected boolean exactNumbers;
+    protected boolean slicing;
+    protected boolean packed;
+    protected Beam beam;
+    protected AssemblyInterner interner;
+    protected ConversionJournal journal;
+    protected ConversionCache cache;
+    protected Parser grammar = CobolParser.sharedGrammar();
+
+    protected Semaphore writePermits = new Semaphore(writers);
+
+    /**
+     * The outcome of converting one input.
+     */
+    public static class Result {
+        public final Path source;
+        public final Path target;
+        public final boolean ok;
+        public final boolean skipped;
+        public final long millis;
+        public final String message;
+
+        public Result(Path source, Path target, boolean ok, long millis, String message) {
+            this(source, target, ok, false, millis, message);
+        }
+
+        public Result(Path source, Path target, boolean ok, boolean skipped, long millis, String message) {
+            this.source = source;
+            this.target = target;
+            this.ok = ok;
+            this.skipped = skipped;
+            this.millis = millis;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Converts one COBOL source file to an XML file, with a tokenizer
+     * and payload of its own and the batch's one frozen grammar, or
+     * from the cache if it holds the XML for the source as it is. The
+     * XML is written to a temporary file, which replaces the target
+     * only once it is complete.
+     *
+     * @param source the COBOL source file
+     * @param target the XML file to write
+     * @throws IOException if the source cannot be read, or the target
+     *         cannot be written
+     */
+    public void convert(Path source, Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            boolean caching = cache != null && copybooks == null;
+            long key = caching ? cache.keyFor(source) : 0;
+            if (caching && cache.copyTo(key, temp)) {
+                replace(temp, target);
+                return;
+            }
+            if (streaming) {
+                try (XMLStreamPayload xmlp = new XMLStreamPayload(temp.toString())) {
+                    parse(source, xmlp);
+                }
+            } else {
+                XMLPayload xmlp = new XMLPayload();
+                parse(source, xmlp);
+                write(xmlp, temp);
+            }
+            if (Files.size(temp) == 0) {
+                throw new IOException("Nothing was written for " + target);
+            }
+            if (caching) {
+                cache.store(key, temp);
+            }
+            replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the grammar version and the options that change the XML
+     * a program converts to, which together key the cache and the
+     * journal.
+     *
+     * @return a description of what the output depends on
+     */
+    protected String outputVersion() {
+        return CobolParser.GRAMMAR_VERSION
+                + " " + charsetName
+                + (streaming ? " stream" : "")
+                + (fixedFormat ? " fixed" : "")
+                + (exactNumbers ? " exact" : "")
+                + (beam != null ? " beam=" + beam.width() : "")
+                + (copybooks != null ? " copy" : "");
+    }
+
+    /*
+     * Move a finished file over its target in one step, where the file
+     * system allows it.
+     */
+    protected static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Parses a COBOL source file a line at a time, or a sentence at a
+     * time if copybooks are to be expanded, passing each statement the
+     * parser recognizes to the payload.
+     *
+     * @param source the COBOL source file
+     * @param payload the payload to receive the statements
+     * @throws IOException if the source cannot be read
+     */
+    public void parse(Path source, CobolPayload payload) throws IOException {
+        Tokenizer t = CobolParser.tokenizer();
+        if (exactNumbers) {
+            ExactNumberState.install(t);
+        }
+        if (slicing) {
+            t.wordState().setLexemeArena(new LexemeArena());
+        }
+        Parser p = grammar;
+        Reader text = FileString.readerFromFileNamed(source.toString(), charsetName);
+        if (fixedFormat) {
+            text = new FixedFormatReader(text);
+        }
+        if (copybooks != null) {
+            try (Reader r = text) {
+                t.setReader(r);
+                parseSentences(new SentenceSource(t), new SentencePipeline(p, payload).setPacked(packed));
+            }
+            return;
+        }
+        try (BufferedReader r = new BufferedReader(text)) {
+            String s;
+            while ((s = r.readLine()) != null) {
+                t.setString(s);
+                Assembly in = packed ? new PackedTokenAssembly(t) : new TokenAssembly(t);
+                Assembly out = p.bestMatch(in);
+                Cobol c = out == null ? null : (Cobol) out.getTarget();
+                if (c != null) {
+                    payload.addElements(c);
+                }
+            }
+        }
+    }
+
+    /*
+     * Expand the copybooks of each sentence, and offer the sentences
+     * of the expansion to the pipeline.
+     */
+    protected void parseSentences(SentenceSource source, SentencePipeline pipeline) throws IOException {
+        while (source.hasMoreTokenStrings()) {
+            TokenString sentence = source.nextTokenString();
+            TokenString ts = copybooks.expand(sentence);
+            if (ts == sentence) {
+                pipeline.offer(sentence);
+                continue;
+            }
+            int n = ts.length();
+            int from = 0;
+            for (int i = 0; i < n; i++) {
+                Token tok = ts.tokenAt(i);
+                if (tok.isSymbol() && tok.sval().equals(".")) {
+                    pipeline.offer(new CompositeTokenString().append(ts, from, i + 1 - from));
+                    from = i + 1;
+                }
+            }
+            if (from < n) {
+                pipeline.offer(new CompositeTokenString().append(ts, from, n - from));
+            }
+        }
+        pipeline.run(source);
+    }
+
+    /**
+     * Converts every input, returning the outcome of each in the order
+     * the inputs were given. Inputs that would be written to the same
+     * XML file, such as programs of the same name listed from
+     * different directories, are not converted but fail, so that
+     * neither silently replaces the other.
+     *
+     * @param sources the COBOL source files
+     * @param sourceRoot the directory the output layout is relative to
+     * @param targetRoot the directory to write XML files under
+     * @return the outcome of each conversion
+     */
+    public Result[] convertAll(List<Path> sources, Path sourceRoot, Path targetRoot) {
+        writePermits = new Semaphore(writers);
+        Result[] results = new Result[sources.size()];
+        failDuplicateTargets(sources, sourceRoot, targetRoot, results);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new ConvertTask(sources, sourceRoot, targetRoot, results, 0, sources.size()));
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    /*
+     * Fill in a failure for each input whose XML file is also the
+     * target of another input.
+     */
+    protected static void failDuplicateTargets(List<Path> sources, Path sourceRoot, Path targetRoot, Result[] results) {
+        Map<Path, Integer> first = new HashMap<Path, Integer>();
+        for (int i = 0; i < sources.size(); i++) {
+            Path target = targetFor(sources.get(i), sourceRoot, targetRoot);
+            Integer j = first.putIfAbsent(target.toAbsolutePath().normalize(), i);
+            if (j != null) {
+                results[i] = duplicate(sources.get(i), target, sources.get(j));
+                if (results[j] == null) {
+                    results[j] = duplicate(sources.get(j), target, sources.get(i));
+                }
+            }
+        }
+    }
+
+    /*
+     * The outcome of an input not converted because another input has
+     * the same target.
+     */
+    protected static Result duplicate(Path source, Path target, Path other) {
+        return new Result(source, target, false, 0, "Same target as " + other);
+    }
+
+    /**
+     * Converts one input and records how it went. Failures are caught
+     * here, so one bad program does not stop the batch.
+     *
+     * @param source the COBOL source file
+     * @param target the XML file to write
+     * @return the outcome of the conversion
+     */
+    protected Result convertOne(Path source, Path target) {
+        long start = System.currentTimeMillis();
+        try {
+            Path dir = target.getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            if (journal != null && copybooks == null && journal.isUpToDate(source, target)) {
+                return new Result(source, target, true, true, System.currentTimeMillis() - start, "");
+            }
+            convert(source, target);
+            if (journal != null) {
+                journal.record(source, target);
+            }
+            return new Result(source, target, true, System.currentTimeMillis() - start, "");
+        } catch (Exception | StackOverflowError e) {
+            LOGGER.log(Level.WARNING, "Failed to convert " + source, e);
+            return new Result(source, target, false, System.currentTimeMillis() - start, String.valueOf(e));
+        }
+    }
+
+    /**
+     * Returns true if the file name has one of the COBOL source
+     * extensions.
+     *
+     * @param p a file
+     * @return true, if the file looks like a COBOL source
+     */
+    protected static boolean isSource(Path p) {
+        String name = p.getFileName().toString().toLowerCase();
+        for (String ext : SOURCE_EXTENSIONS) {
+            if (name.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the inputs a command-line argument names: the COBOL
+     * sources under a directory, or the files listed in an
+     * <code>@list</code> file.
+     *
+     * @param arg a directory, or <code>@</code> and a list file
+     * @return the inputs, in a stable order
+     * @throws IOException if the directory or list cannot be read
+     */
+    public static List<Path> sources(String arg) throws IOException {
+        if (arg.startsWith("@")) {
+            try (Stream<String> lines = Files.lines(Paths.get(arg.substring(1)))) {
+                return lines.map(String::trim)
+                        .filter(s -> !s.isEmpty())
+                        .map(Paths::get)
+                        .collect(Collectors.toList());
+            }
+        }
+        try (Stream<Path> files = Files.walk(Paths.get(arg))) {
+            return files.filter(Files::isRegularFile)
+                    .filter(BatchCobol2XML::isSource)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the XML file for a source: the same path relative to the
+     * output directory, with its extension replaced by ".xml".
+     *
+     * @param source a COBOL source file
+     * @param sourceRoot the directory the output layout is relative to
+     * @param targetRoot the output directory
+     * @return the XML file for the source
+     */
+    public static Path targetFor(Path source, Path sourceRoot, Path targetRoot) {
+        Path rel = sourceRoot != null && source.startsWith(sourceRoot)
+                ? sourceRoot.relativize(source)
+                : source.getFileName();
+        String name = rel.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String xml = (dot > 0 ? name.substring(0, dot) : name) + ".xml";
+        Path parent = rel.getParent();
+        return targetRoot.resolve(parent == null ? Paths.get(xml) : parent.resolve(xml));
+    }
+
+    /**
+     * Prints a line for each conversion and a count of successes,
+     * skips and failures.
+     *
+     * @param results the outcomes to summarize
+     * @param out the stream to print to
+     * @return the number of failures
+     */
+    public static int summarize(Result[] results, PrintStream out) {
+        int failed = 0;
+        int skipped = 0;
+        long millis = 0;
+        for (Result r : results) {
+            millis += r.millis;
+            if (r.skipped) {
+                skipped++;
+                out.println("SKIPPED " + r.source);
+            } else if (r.ok) {
+                out.println("OK      " + r.source + " (" + r.millis + " ms)");
+            } else {
+                failed++;
+                out.println("FAILED  " + r.source + ": " + r.message);
+            }
+        }
+        out.println((results.length - failed - skipped) + " converted, " + skipped + " skipped, "
+                + failed + " failed, " + millis + " ms of conversion time");
+        return failed;
+    }
+
+    /*
+     * Write a finished payload, waiting for a write permit first.
+     */
+    protected void write(XMLPayload xmlp, Path target) {
+        writePermits.acquireUninterruptibly();
+        try {
+            xmlp.writeFile(target.toString());
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    /**
+     * Converts a directory tree or a list of files.
+     *
+     * @param args the input, the output directory, and any options
+     * @throws Exception if the inputs cannot be listed
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchCobol2XML (inputDir | @listFile) outputDir"
+                    + " [-threads n] [-writers n] [-charset name] [-stream] [-fixed]"
+                    + " [-copy dir" + java.io.File.pathSeparator + "dir...] [-exact] [-slice] [-packed] [-beam n] [-dedupe] [-compile] [-handles]"
+                    + " [-journal file] [-cache dir]");
+            System.exit(2);
+        }
+        BatchCobol2XML batch = new BatchCobol2XML();
+        Path cacheDir = null;
+        Path journalFile = null;
+        boolean compile = false;
+        boolean handles = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-stream")) {
+                batch.streaming = true;
+            } else if (args[i].equals("-fixed")) {
+                batch.fixedFormat = true;
+            } else if (args[i].equals("-exact")) {
+                batch.exactNumbers = true;
+            } else if (args[i].equals("-slice")) {
+                batch.slicing = true;
+            } else if (args[i].equals("-packed")) {
+                batch.packed = true;
+            } else if (args[i].equals("-dedupe")) {
+                batch.interner = new AssemblyInterner();
+            } else if (args[i].equals("-compile")) {
+                if (handles) {
+                    throw new IllegalArgumentException("-compile cannot be used with -handles");
+                }
+                compile = true;
+            } else if (args[i].equals("-handles")) {
+                if (compile) {
+                    throw new IllegalArgumentException("-handles cannot be used with -compile");
+                }
+                handles = true;
+            } else if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            } else if (args[i].equals("-threads")) {
+                batch.threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-writers")) {
+                batch.writers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-charset")) {
+                batch.charsetName = args[++i];
+            } else if (args[i].equals("-beam")) {
+                batch.beam = new Beam(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("-cache")) {
+                cacheDir = Paths.get(args[++i]);
+            } else if (args[i].equals("-journal")) {
+                journalFile = Paths.get(args[++i]);
+            } else if (args[i].equals("-copy")) {
+                batch.copybooks = new CopybookLibrary().addPath(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (batch.beam != null || batch.interner != null) {
+            batch.grammar = CobolParser.frozenGrammar(batch.interner, batch.beam);
+        }
+        if (compile) {
+            batch.grammar = GrammarCompiler.compile(batch.grammar);
+        } else if (handles) {
+            batch.grammar = HandleGrammarCompiler.compile(batch.grammar);
+        }
+        if (cacheDir != null) {
+            batch.cache = new ConversionCache(cacheDir, batch.outputVersion(), ConversionCache.DEFAULT_MAX_BYTES);
+        }
+        if (journalFile != null) {
+            batch.journal = new ConversionJournal(journalFile, batch.outputVersion());
+        }
+        if (batch.copybooks != null) {
+            batch.copybooks.setCharsetName(batch.charsetName).setFixedFormat(batch.fixedFormat);
+        }
+        List<Path> sources = sources(args[0]);
+        Path sourceRoot = args[0].startsWith("@") ? null : Paths.get(args[0]);
+        Result[] results = batch.convertAll(sources, sourceRoot, Paths.get(args[1]));
+        int failed = summarize(results, System.out);
+        if (batch.journal != null) {
+            batch.journal.close();
+        }
+        if (batch.cache != null) {
+            System.out.println(batch.cache);
+        }
+        if (batch.interner != null) {
+            System.out.println(batch.interner);
+        }
+        if (batch.beam != null) {
+            System.out.println(batch.beam);
+        }
+        if (ParserStats.ENABLED) {
+            ParserStats.dump(System.out);
+        }
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /*
+     * Converts a range of the inputs, splitting it in half until each
+     * task holds a single input, so idle workers can steal the rest.
+     */
+    protected class ConvertTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> sources;
+        private final Path sourceRoot;
+        private final Path targetRoot;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        ConvertTask(List<Path> sources, Path sourceRoot, Path targetRoot, Result[] results, int from, int to) {
+            this.sources = sources;
+            this.sourceRoot = sourceRoot;
+            this.targetRoot = targetRoot;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    if (results[i] != null) {
+                        continue;
+                    }
+                    Path source = sources.get(i);
+                    results[i] = convertOne(source, targetFor(source, sourceRoot, targetRoot));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ConvertTask(sources, sourceRoot, targetRoot, results, from, mid),
+                    new ConvertTask(sources, sourceRoot, targetRoot, results, mid, to));
+        }
+    }
+}
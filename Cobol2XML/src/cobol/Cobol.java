@@ -21,6 +21,8 @@
 
 package cobol;
 
+import java.util.Objects;
+
 import utensil.*;
 
 public class Cobol implements PubliclyCloneable {
@@ -67,7 +69,7 @@ public class Cobol implements PubliclyCloneable {
 	/**
 	 * Compares this object against the specified object. The 
 	 * result is <code>true</code> if and only if the argument is 
-	 * not <code>null</code> and is a <code>Coffee</code> object 
+	 * not <code>null</code> and is a <code>Cobol</code> object 
 	 * whose attributes all equal this object's attributes.
 	 *
 	 * @param   o   the object to compare with.
@@ -91,14 +93,43 @@ public class Cobol implements PubliclyCloneable {
 			return false;
 		}
 		
+		if (!ifCobolObjEqual(divisionName, c.divisionName)) {
+			return false;
+		}
+		
+		if (!ifCobolObjEqual(commentLine, c.commentLine)) {
+			return false;
+		}
+		
+		if (dayDateWritten != c.dayDateWritten || yearDateWritten != c.yearDateWritten) {
+			return false;
+		}
+		
+		if (!ifCobolObjEqual(monthDateWritten, c.monthDateWritten)) {
+			return false;
+		}
 
 		return true;
 	}
 	
-	 @Override
-	  public int hashCode() {
-	    return super.hashCode();
-	  }
+	/**
+	 * Returns a hash code made from the same attributes that
+	 * <code>equals()</code> compares, so that equal objects have
+	 * equal hash codes.
+	 *
+	 * @return  a hash code for this object
+	 */
+	@Override
+	public int hashCode() {
+		int h = Objects.hashCode(program_id);
+		h = 31 * h + Objects.hashCode(sectionName);
+		h = 31 * h + Objects.hashCode(divisionName);
+		h = 31 * h + Objects.hashCode(commentLine);
+		h = 31 * h + dayDateWritten;
+		h = 31 * h + Objects.hashCode(monthDateWritten);
+		h = 31 * h + yearDateWritten;
+		return h;
+	}
 
 
 	/**
@@ -0,0 +1,531 @@
+/*
+ * @(#)CobolCorpusGenerator.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A CobolCorpusGenerator writes large, made-up COBOL programs for load
+ * testing the converter.
+ * <p>
+ * Each program has all four divisions. The data division holds
+ * records of elementary items, some of them repeated under different
+ * prefixes, as an expanded copybook would be; the procedure division
+ * holds paragraphs of statements drawn at random according to a
+ * configurable mix. Comment lines are sprinkled throughout.
+ * <p>
+ * The output depends only on the settings and the seed, so a corpus
+ * can be made again rather than kept. Programs are written a line at
+ * a time through a <code>BufferedWriter</code>, so a file of any size
+ * takes little memory to produce.
+ * <p>
+ * Usage:
+ * <pre>
+ *     CobolCorpusGenerator file.cbl [-lines n] [-seed n]
+ *         [-mix move=4,add=2,compute=2,if=2,perform=1,display=1]
+ *         [-comments percent] [-fixed]
+ * </pre>
+ */
+public class CobolCorpusGenerator {
+
+    /**
+     * The kinds of statement the procedure division is made of.
+     */
+    public enum Statement {
+        MOVE, ADD, COMPUTE, IF, PERFORM, DISPLAY
+    }
+
+    /**
+     * The seed used when none is given.
+     */
+    public static final long DEFAULT_SEED = 19950707L;
+
+    /*
+     * The columns, 8 to 72, that hold text in fixed format
+     */
+    protected static final int FIXED_TEXT_WIDTH = 65;
+
+    protected static final String[] MONTHS = {
+        "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"
+    };
+    protected static final String[] NOUNS = {
+        "CUSTOMER", "ACCOUNT", "BALANCE", "RATE", "TOTAL", "COUNT", "BRANCH", "AMOUNT",
+        "STATUS", "LIMIT", "REGION", "PERIOD", "CODE", "NAME", "DATE", "INDEX"
+    };
+
+    protected long lines = 10000;
+    protected long seed = DEFAULT_SEED;
+    protected int commentPercent = 5;
+    protected boolean fixedFormat;
+    protected Map<Statement, Integer> mix = new EnumMap<Statement, Integer>(Statement.class);
+
+    /*
+     * The state of the program being written
+     */
+    protected Random random;
+    protected Writer out;
+    protected long written;
+    protected ArrayList<String> numericFields = new ArrayList<String>();
+    protected ArrayList<String> alphaFields = new ArrayList<String>();
+    protected int paragraphs;
+
+    /**
+     * Constructs a generator with the default size, seed and mix.
+     */
+    public CobolCorpusGenerator() {
+        mix.put(Statement.MOVE, 4);
+        mix.put(Statement.ADD, 2);
+        mix.put(Statement.COMPUTE, 2);
+        mix.put(Statement.IF, 2);
+        mix.put(Statement.PERFORM, 1);
+        mix.put(Statement.DISPLAY, 1);
+    }
+
+    /**
+     * Sets the number of lines to write; the program is ended within a
+     * few lines of it.
+     *
+     * @param lines the number of lines to write
+     * @return this
+     */
+    public CobolCorpusGenerator setLines(long lines) {
+        this.lines = lines;
+        return this;
+    }
+
+    /**
+     * Sets the seed that decides everything random about the output.
+     *
+     * @param seed the seed
+     * @return this
+     */
+    public CobolCorpusGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the percentage of lines that are comments.
+     *
+     * @param commentPercent the percentage of comment lines
+     * @return this
+     */
+    public CobolCorpusGenerator setCommentPercent(int commentPercent) {
+        this.commentPercent = commentPercent;
+        return this;
+    }
+
+    /**
+     * Sets whether to write fixed-format lines, with a sequence number
+     * in columns 1-6 and the indicator in column 7.
+     *
+     * @param fixedFormat true, to write fixed-format lines
+     * @return this
+     */
+    public CobolCorpusGenerator setFixedFormat(boolean fixedFormat) {
+        this.fixedFormat = fixedFormat;
+        return this;
+    }
+
+    /**
+     * Sets the relative weight of a kind of statement.
+     *
+     * @param s a kind of statement
+     * @param weight its weight; 0 leaves it out
+     * @return this
+     */
+    public CobolCorpusGenerator setWeight(Statement s, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight for " + s);
+        }
+        mix.put(s, weight);
+        return this;
+    }
+
+    /**
+     * Sets the statement mix from a list such as
+     * <code>move=4,add=2,if=1</code>. Kinds not listed keep their
+     * weights.
+     *
+     * @param spec the weights, by kind
+     * @return this
+     */
+    public CobolCorpusGenerator setMix(String spec) {
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Bad statement weight: " + part);
+            }
+            setWeight(Statement.valueOf(kv[0].trim().toUpperCase()), Integer.parseInt(kv[1].trim()));
+        }
+        return this;
+    }
+
+    /**
+     * Writes a program to the named file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            generate(w);
+        }
+    }
+
+    /**
+     * Writes a program to the given writer, which is not closed.
+     *
+     * @param w the writer to write to
+     * @throws IOException if the writer fails
+     */
+    public void generate(Writer w) throws IOException {
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalStateException("The statement mix is empty");
+        }
+        random = new Random(seed);
+        out = w;
+        written = 0;
+        numericFields.clear();
+        alphaFields.clear();
+        paragraphs = 0;
+
+        identificationDivision();
+        environmentDivision();
+        dataDivision();
+        procedureDivision(total);
+        out.flush();
+    }
+
+    /*
+     * Write the identification division.
+     */
+    protected void identificationDivision() throws IOException {
+        line("IDENTIFICATION DIVISION.");
+        line("PROGRAM-ID.  PGM" + (1000 + random.nextInt(9000)) + ".");
+        line("AUTHOR.  " + noun() + "-TEAM.");
+        line("DATE-WRITTEN.  " + (1 + random.nextInt(28)) + "-"
+                + MONTHS[random.nextInt(12)] + "-" + (1970 + random.nextInt(30)) + ".");
+        comment("Generated for load testing; seed " + seed + ".");
+        blank();
+    }
+
+    /*
+     * Write the environment division.
+     */
+    protected void environmentDivision() throws IOException {
+        line("ENVIRONMENT DIVISION.");
+        line("CONFIGURATION SECTION.");
+        line("SOURCE-COMPUTER.  IBM-370.");
+        line("OBJECT-COMPUTER.  IBM-370.");
+        line("INPUT-OUTPUT SECTION.");
+        line("FILE-CONTROL.");
+        line("    SELECT " + noun() + "-FILE ASSIGN TO DISK.");
+        blank();
+    }
+
+    /*
+     * Write the data division: a tenth of the program, at least one
+     * record, with one record layout repeated as a copybook would be.
+     */
+    protected void dataDivision() throws IOException {
+        line("DATA DIVISION.");
+        line("WORKING-STORAGE SECTION.");
+        long budget = Math.max(8, lines / 10);
+        long end = written + budget;
+
+        String[] copybook = copybookLayout();
+        int copies = 0;
+        int records = 0;
+        while (written < end) {
+            if (random.nextInt(3) == 0) {
+                copies++;
+                copybookRecord(copybook, "CB" + copies);
+            } else {
+                records++;
+                record("WS-REC-" + records);
+            }
+        }
+        blank();
+    }
+
+    /*
+     * Return the elementary items of the repeated record layout.
+     */
+    protected String[] copybookLayout() {
+        int n = 3 + random.nextInt(6);
+        String[] items = new String[n];
+        for (int i = 0; i < n; i++) {
+            items[i] = noun() + "-" + (i + 1);
+        }
+        return items;
+    }
+
+    /*
+     * Write one copy of the repeated record layout, under the given
+     * prefix.
+     */
+    protected void copybookRecord(String[] items, String prefix) throws IOException {
+        comment("COPY CUSTREC REPLACING ==:PFX:== BY ==" + prefix + "==.");
+        line("01  " + prefix + "-RECORD.");
+        for (int i = 0; i < items.length; i++) {
+            item(prefix + "-" + items[i], i % 2 == 0);
+        }
+    }
+
+    /*
+     * Write a record of elementary items.
+     */
+    protected void record(String name) throws IOException {
+        maybeComment();
+        line("01  " + name + ".");
+        int n = 2 + random.nextInt(8);
+        for (int i = 0; i < n; i++) {
+            item(name + "-" + noun(), random.nextBoolean());
+        }
+    }
+
+    /*
+     * Write an elementary item, remembering its name for statements.
+     */
+    protected void item(String name, boolean numeric) throws IOException {
+        if (numeric) {
+            int digits = 3 + random.nextInt(9);
+            String usage = random.nextInt(4) == 0 ? " COMP-3" : "";
+            line("    05  " + name + "  PIC S9(" + digits + ")V99" + usage + " VALUE ZERO.");
+            numericFields.add(name);
+        } else {
+            line("    05  " + name + "  PIC X(" + (1 + random.nextInt(40)) + ") VALUE SPACES.");
+            alphaFields.add(name);
+        }
+    }
+
+    /*
+     * Write the procedure division: paragraphs of statements up to the
+     * size asked for, then the end of the program.
+     */
+    protected void procedureDivision(int totalWeight) throws IOException {
+        line("PROCEDURE DIVISION.");
+        while (written < lines - 2) {
+            paragraphs++;
+            line("PARA-" + paragraphs + ".");
+            int n = 3 + random.nextInt(12);
+            for (int i = 0; i < n && written < lines - 2; i++) {
+                maybeComment();
+                statement(pick(totalWeight));
+            }
+        }
+        line("    STOP RUN.");
+    }
+
+    /*
+     * Return a kind of statement, chosen according to the mix.
+     */
+    protected Statement pick(int totalWeight) {
+        int r = random.nextInt(totalWeight);
+        for (Map.Entry<Statement, Integer> e : mix.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) {
+                return e.getKey();
+            }
+        }
+        throw new InternalError("Statement weights changed while generating");
+    }
+
+    /*
+     * Write a statement of the given kind.
+     */
+    protected void statement(Statement s) throws IOException {
+        switch (s) {
+        case MOVE:
+            if (random.nextBoolean()) {
+                line("    MOVE " + alpha() + " TO " + alpha() + ".");
+            } else {
+                line("    MOVE " + numeric() + " TO " + numeric() + ".");
+            }
+            break;
+        case ADD:
+            line("    ADD " + (1 + random.nextInt(999)) + " TO " + numeric() + ".");
+            break;
+        case COMPUTE:
+            line("    COMPUTE " + numeric() + " = " + numeric() + " * "
+                    + (1 + random.nextInt(99)) + "." + random.nextInt(100) + " + " + numeric() + ".");
+            break;
+        case IF:
+            line("    IF " + numeric() + " > " + random.nextInt(10000));
+            line("        MOVE " + numeric() + " TO " + numeric());
+            line("    ELSE");
+            line("        DISPLAY '" + noun() + " NOT REACHED'");
+            line("    END-IF.");
+            break;
+        case PERFORM:
+            line("    PERFORM PARA-" + (1 + random.nextInt(paragraphs)) + ".");
+            break;
+        case DISPLAY:
+            line("    DISPLAY '" + noun() + ": ' " + alpha() + ".");
+            break;
+        default:
+            throw new InternalError("Unknown statement " + s);
+        }
+    }
+
+    /*
+     * Return a random numeric field, or a literal if there are none.
+     */
+    protected String numeric() {
+        return numericFields.isEmpty() ? "ZERO" : numericFields.get(random.nextInt(numericFields.size()));
+    }
+
+    /*
+     * Return a random alphanumeric field, or a literal if there are none.
+     */
+    protected String alpha() {
+        return alphaFields.isEmpty() ? "SPACES" : alphaFields.get(random.nextInt(alphaFields.size()));
+    }
+
+    /*
+     * Return a random noun for names and text.
+     */
+    protected String noun() {
+        return NOUNS[random.nextInt(NOUNS.length)];
+    }
+
+    /*
+     * Write a comment line, as often as the comment rate says.
+     */
+    protected void maybeComment() throws IOException {
+        if (random.nextInt(100) < commentPercent) {
+            comment("Check " + noun().toLowerCase() + " against " + noun().toLowerCase() + ".");
+        }
+    }
+
+    /*
+     * Write a comment line.
+     */
+    protected void comment(String text) throws IOException {
+        if (fixedFormat) {
+            emit('*', text);
+        } else {
+            emit(' ', "*> " + text);
+        }
+    }
+
+    /*
+     * Write a blank line.
+     */
+    protected void blank() throws IOException {
+        emit(' ', "");
+    }
+
+    /*
+     * Write a line of code.
+     */
+    protected void line(String code) throws IOException {
+        emit(' ', code);
+    }
+
+    /*
+     * Write a line. In fixed format, add the sequence area and
+     * indicator, and carry text past column 72 over to further lines,
+     * breaking between words.
+     */
+    protected void emit(char indicator, String text) throws IOException {
+        if (!fixedFormat) {
+            written++;
+            out.write(text);
+            out.write('\n');
+            return;
+        }
+        while (text.length() > FIXED_TEXT_WIDTH) {
+            int cut = text.lastIndexOf(' ', FIXED_TEXT_WIDTH);
+            if (cut <= 0) {
+                cut = FIXED_TEXT_WIDTH;
+            }
+            emitFixed(indicator, text.substring(0, cut));
+            text = "        " + text.substring(cut).trim();
+        }
+        emitFixed(indicator, text);
+    }
+
+    /*
+     * Write a fixed-format line: a sequence number in columns 1-6, the
+     * indicator in column 7, and text from column 8.
+     */
+    protected void emitFixed(char indicator, String text) throws IOException {
+        written++;
+        String seq = Long.toString((written * 100) % 1000000);
+        for (int i = seq.length(); i < 6; i++) {
+            out.write('0');
+        }
+        out.write(seq);
+        out.write(indicator);
+        out.write(text);
+        out.write('\n');
+    }
+
+    /**
+     * Writes a program to the file named on the command line.
+     *
+     * @param args the file to write, and any options
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CobolCorpusGenerator file.cbl [-lines n] [-seed n]"
+                    + " [-mix kind=weight,...] [-comments percent] [-fixed]");
+            System.exit(2);
+        }
+        CobolCorpusGenerator g = new CobolCorpusGenerator();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-fixed")) {
+                g.setFixedFormat(true);
+            } else if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            } else if (args[i].equals("-lines")) {
+                g.setLines(Long.parseLong(args[++i]));
+            } else if (args[i].equals("-seed")) {
+                g.setSeed(Long.parseLong(args[++i]));
+            } else if (args[i].equals("-mix")) {
+                g.setMix(args[++i]);
+            } else if (args[i].equals("-comments")) {
+                g.setCommentPercent(Integer.parseInt(args[++i]));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        g.write(Paths.get(args[0]));
+    }
+}
@@ -18,16 +18,24 @@
 
 package cobol;
 
+import java.io.IOException;
+
 import parse.Alternation;
 import parse.Assembler;
+import parse.AssemblyInterner;
+import parse.Beam;
 import parse.Empty;
+import parse.InstrumentedParser;
 import parse.Parser;
+import parse.ParserStats;
 import parse.Sequence;
 import parse.tokens.CaselessLiteral;
+import parse.tokens.DispatchAlternation;
 import parse.tokens.Num;
 import parse.tokens.Symbol;
 import parse.tokens.Tokenizer;
 import parse.tokens.Word;
+import utensil.FileString;
 
 /**
  * CobolParser is a class that provides a parser for COBOL source code.
@@ -35,6 +43,14 @@ import parse.tokens.Word;
  * the selected COBOL source code constructs.
  */
 public class CobolParser {
+
+    /**
+     * The version of the grammar this class builds. Change it whenever
+     * a change to the grammar or its assemblers changes the XML a
+     * program converts to, so that conversions cached under the old
+     * grammar are not reused.
+     */
+    public static final String GRAMMAR_VERSION = "1";
     
     /**
      * Default constructor for CobolParser.
@@ -46,12 +62,14 @@ public class CobolParser {
     /**
      * Return a parser that will recognize the selected COBOL source code constructs:
      *
-     * This parser creates a COBOL object as an assembly's target.
+     * This parser creates a COBOL object as an assembly's target. Its
+     * alternatives are dispatched on the next token, so only those
+     * that can start with it are tried.
      *
      * @return a parser that will recognize and build a COBOL object from a source code file.
      */
     public Parser cobol() {
-        Alternation a = new Alternation();
+        Alternation a = new DispatchAlternation("cobol");
         
         Symbol fullstop = new Symbol('.');
         fullstop.discard(); // discards the full stop symbol
@@ -72,7 +90,7 @@ public class CobolParser {
      *
      */
     protected Parser ProgramID() {
-        Sequence s = new Sequence();
+        Sequence s = new Sequence("ProgramID");
         s.add(new CaselessLiteral("program-id"));
         s.add(fullstop); // discards the full stop symbol
         s.add(new Word().setAssembler(new Program_idAssembler()));
@@ -86,7 +104,7 @@ public class CobolParser {
      *
      */
     protected Parser DivisionName() {
-        Sequence s = new Sequence();
+        Sequence s = new Sequence("DivisionName");
         s.add(new Word().setAssembler(new DivisionAssembler()));
         s.add(new CaselessLiteral("division"));
         s.add(fullstop); // discards the full stop symbol
@@ -100,7 +118,7 @@ public class CobolParser {
      *
      */
     protected Parser SectionName() {
-        Sequence s = new Sequence();
+        Sequence s = new Sequence("SectionName");
         s.add(new Word().setAssembler(new SectionNameAssembler()));
         s.add(new CaselessLiteral("section"));
         s.add(fullstop); // discards the full stop symbol
@@ -114,7 +132,7 @@ public class CobolParser {
      *
      */
     protected Parser DateWritten() {
-        Sequence s = new Sequence();
+        Sequence s = new Sequence("DateWritten");
         s.add(new CaselessLiteral("date-written"));
         s.add(fullstop); // discards the full stop symbol
         s.add(new Num()); // matches a number
@@ -135,6 +153,51 @@ public class CobolParser {
     public static Parser start() {
         return new CobolParser().cobol();
     }
+
+    /**
+     * Returns a frozen instance of the primary parser, built the first
+     * time it is asked for and shared from then on. The grammar's
+     * assemblers keep no state, so any number of threads may match
+     * against it at once.
+     *
+     * @return a frozen, shared instance of the primary parser
+     */
+    public static Parser sharedGrammar() {
+        return SharedGrammar.INSTANCE;
+    }
+
+    /**
+     * Returns a new frozen instance of the primary parser whose
+     * alternations and repetitions collapse duplicate results with the
+     * given interner, and prune them with the given beam. If parsers
+     * are being counted, the grammar's named productions are
+     * instrumented before it is frozen.
+     *
+     * @param interner the interner to collapse duplicates with, or null
+     * @param beam the beam to prune with, or null to keep every result
+     * @return a frozen instance of the primary parser
+     */
+    public static Parser frozenGrammar(AssemblyInterner interner, Beam beam) {
+        Parser p = start();
+        if (interner != null) {
+            interner.applyTo(p);
+        }
+        if (beam != null) {
+            beam.applyTo(p);
+        }
+        if (ParserStats.ENABLED) {
+            p = InstrumentedParser.instrument(p);
+        }
+        return p.freeze();
+    }
+
+    /*
+     * Holds the shared grammar; the class is initialized, and the
+     * grammar built, on first use.
+     */
+    private static class SharedGrammar {
+        static final Parser INSTANCE = frozenGrammar(null, null);
+    }
     
     /**
      * Returns a tokenizer that does not allow spaces to appear inside
@@ -148,6 +211,22 @@ public class CobolParser {
         t.wordState().setWordChars(' ', ' ', false);
         return t;
     }
+
+    /**
+     * Returns a tokenizer for the named COBOL source file. The file is
+     * memory-mapped and decoded as it is read, rather than being copied
+     * into a String first.
+     *
+     * @param fileName the name of the COBOL source file
+     * @param charsetName the charset of the file, such as "IBM037"
+     * @return a tokenizer that reads the named file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static Tokenizer tokenizer(String fileName, String charsetName) throws IOException {
+        Tokenizer t = tokenizer();
+        t.setReader(FileString.readerFromFileNamed(fileName, charsetName));
+        return t;
+    }
     
     /**
      * Parses the given COBOL source code using the COBOL parser.
@@ -0,0 +1,307 @@
+/*
+ * @(#)CompiledGrammarTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Random;
+
+import parse.Alternation;
+import parse.Assembly;
+import parse.Beam;
+import parse.CompiledParser;
+import parse.GrammarCompiler;
+import parse.HandleGrammarCompiler;
+import parse.MemoTable;
+import parse.Parser;
+import parse.Repetition;
+import parse.Sequence;
+import parse.tokens.Num;
+import parse.tokens.Symbol;
+import parse.tokens.Token;
+import parse.tokens.TokenAssembly;
+import parse.tokens.TokenString;
+import parse.tokens.Tokenizer;
+import parse.tokens.Word;
+
+/**
+ * A CompiledGrammarTester checks that the COBOL grammar, compiled by a
+ * <code>GrammarCompiler</code> or by a
+ * <code>HandleGrammarCompiler</code>, matches exactly as the
+ * interpreted grammar does, and that so does the grammar memoized by
+ * <code>MemoTable.memoize()</code>. The memoized grammar keeps one
+ * table for every line it parses, so a result remembered for one
+ * line must never be returned for another.
+ * <p>
+ * It parses each line of some COBOL programs with each, and compares
+ * every assembly a compiled grammar returns with those the
+ * interpreted grammar returns, in order: each pair must have
+ * consumed the same tokens and hold an equal stack and an equal
+ * <code>Cobol</code> target. The programs are the files named on the
+ * command line or, if none are, programs made up by a
+ * <code>CobolCorpusGenerator</code> from successive seeds.
+ * <p>
+ * The COBOL grammar has no repetition, recursion or beam, so the
+ * tester also checks a small grammar of nested, parenthesized lists
+ * that has all three, with and without a <code>Beam</code>, against
+ * random lists.
+ * <p>
+ * Usage:
+ * <pre>
+ *     CompiledGrammarTester [file.cbl ...] [-programs n] [-lines n] [-lists n] [-seed n]
+ * </pre>
+ * The tester exits with status 1 if any line parses differently.
+ */
+public class CompiledGrammarTester {
+
+    /*
+     * The most differences to print
+     */
+    protected static final int MAX_REPORTED = 10;
+
+    protected Parser interpreted = CobolParser.start();
+    protected CompiledParser compiled = GrammarCompiler.compile(CobolParser.start());
+    protected Parser handles = HandleGrammarCompiler.compile(CobolParser.start());
+    protected Parser memoized = MemoTable.memoize(CobolParser.start(), new MemoTable());
+    protected long lines;
+    protected long lists;
+    protected long matches;
+    protected long differences;
+
+    /**
+     * Parses a line with each grammar, and returns true if they agree.
+     *
+     * @param s a line of COBOL
+     * @return true, if every grammar returns the same assemblies
+     */
+    public boolean check(String s) {
+        lines++;
+        ArrayList<Assembly> a = interpreted.matchAndAssemble(start(s));
+        matches += a.size();
+        boolean same = agrees(s, a, "compiled", compiled);
+        same = agrees(s, a, "handles", handles) && same;
+        return agrees(s, a, "memoized", memoized) && same;
+    }
+
+    /*
+     * Return true if a compiled grammar returns the same assemblies as
+     * the interpreted one did, reporting the line if it does not.
+     */
+    protected boolean agrees(String s, ArrayList<Assembly> a, String name, Parser p) {
+        return agrees(s, a, name, p.matchAndAssemble(start(s)));
+    }
+
+    /*
+     * Return true if a compiled grammar's assemblies are those the
+     * interpreted one returned, reporting the input if they are not.
+     */
+    protected boolean agrees(String s, ArrayList<Assembly> a, String name, ArrayList<Assembly> b) {
+        boolean same = a.size() == b.size();
+        for (int i = 0; same && i < a.size(); i++) {
+            same = a.get(i).sameState(b.get(i));
+        }
+        if (!same) {
+            if (differences < MAX_REPORTED) {
+                System.out.println("DIFFERS (" + name + "): " + s);
+                System.out.println("    interpreted: " + a);
+                System.out.println("    " + name + ": " + b);
+            }
+            differences++;
+        }
+        return same;
+    }
+
+    /**
+     * Checks every line of a program.
+     *
+     * @param program the text of a COBOL program
+     * @throws IOException if the text cannot be read
+     */
+    public void checkProgram(String program) throws IOException {
+        BufferedReader r = new BufferedReader(new StringReader(program));
+        String s;
+        while ((s = r.readLine()) != null) {
+            check(s);
+        }
+    }
+
+    /**
+     * Checks random nested lists against the list grammar, compiled
+     * by each backend, with and without a beam.
+     *
+     * @param count the number of lists to check
+     * @param seed the seed for the random lists
+     */
+    public void checkLists(int count, long seed) {
+        for (int width = 0; width <= 2; width += 2) {
+            Parser interpreted = listGrammar(width);
+            Parser[] backends = {
+                    GrammarCompiler.compile(listGrammar(width)),
+                    HandleGrammarCompiler.compile(listGrammar(width)),
+                    MemoTable.memoize(listGrammar(width), new MemoTable()) };
+            String[] names = { "compiled", "handles", "memoized" };
+            Random random = new Random(seed);
+            for (int i = 0; i < count; i++) {
+                ArrayList<Token> tokens = new ArrayList<Token>();
+                randomList(random, 3, tokens);
+                TokenString ts = new TokenString(tokens.toArray(new Token[tokens.size()]));
+                lists++;
+                ArrayList<Assembly> a = interpreted.matchAndAssemble(start(ts));
+                matches += a.size();
+                for (int k = 0; k < backends.length; k++) {
+                    String label = tokens + (width > 0 ? " (beam " + width + ")" : "");
+                    agrees(label, a, names[k], backends[k].matchAndAssemble(start(ts)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a grammar of nested, parenthesized lists of words and
+     * numbers, in which a list's elements may also be read as pairs
+     * of words, so that most lists match in several ways.
+     * <pre>
+     *     lists   = element*;
+     *     element = list | Word Word | Word | Num;
+     *     list    = '(' element* ')';
+     * </pre>
+     *
+     * @param width the width of a beam to prune the grammar with, or
+     * 0 for none
+     * @return a grammar of nested lists
+     */
+    public static Parser listGrammar(int width) {
+        Alternation element = new Alternation();
+        Sequence list = new Sequence();
+        list.add(new Symbol('('));
+        list.add(new Repetition(element));
+        list.add(new Symbol(')').discard());
+        element.add(list);
+        Sequence pair = new Sequence();
+        pair.add(new Word());
+        pair.add(new Word());
+        element.add(pair);
+        element.add(new Word());
+        element.add(new Num());
+        Parser lists = new Repetition(element);
+        return width > 0 ? new Beam(width).applyTo(lists) : lists;
+    }
+
+    /*
+     * Add the tokens of a random list, nested at most to the given
+     * depth, to a list of tokens.
+     */
+    protected static void randomList(Random random, int depth, ArrayList<Token> tokens) {
+        int n = random.nextInt(4);
+        for (int i = 0; i < n; i++) {
+            int kind = random.nextInt(depth > 0 ? 4 : 3);
+            if (kind == 3) {
+                tokens.add(new Token('('));
+                randomList(random, depth - 1, tokens);
+                if (random.nextInt(10) > 0) {
+                    tokens.add(new Token(')'));
+                }
+            } else if (kind == 2) {
+                tokens.add(new Token(random.nextInt(10)));
+            } else {
+                tokens.add(new Token(String.valueOf((char) ('a' + random.nextInt(3)))));
+            }
+        }
+    }
+
+    /*
+     * Return a collection holding an assembly of the given tokens.
+     */
+    protected ArrayList<Assembly> start(TokenString ts) {
+        ArrayList<Assembly> in = new ArrayList<Assembly>();
+        in.add(new TokenAssembly(ts));
+        return in;
+    }
+
+    /*
+     * Return a collection holding an assembly of the given line.
+     */
+    protected ArrayList<Assembly> start(String s) {
+        Tokenizer t = CobolParser.tokenizer();
+        t.setString(s);
+        ArrayList<Assembly> in = new ArrayList<Assembly>();
+        in.add(new TokenAssembly(t));
+        return in;
+    }
+
+    /**
+     * Checks the programs named on the command line, or made-up ones.
+     *
+     * @param args the programs to check, and any options
+     * @throws IOException if a program cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        ArrayList<String> files = new ArrayList<String>();
+        int programs = 20;
+        long programLines = 2000;
+        int listCount = 2000;
+        long seed = CobolCorpusGenerator.DEFAULT_SEED;
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("-")) {
+                files.add(args[i]);
+            } else if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            } else if (args[i].equals("-programs")) {
+                programs = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-lines")) {
+                programLines = Long.parseLong(args[++i]);
+            } else if (args[i].equals("-lists")) {
+                listCount = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        CompiledGrammarTester tester = new CompiledGrammarTester();
+        if (files.isEmpty()) {
+            for (int k = 0; k < programs; k++) {
+                StringWriter w = new StringWriter();
+                new CobolCorpusGenerator().setLines(programLines).setSeed(seed + k).generate(w);
+                tester.checkProgram(w.toString());
+            }
+        } else {
+            for (String f : files) {
+                tester.checkProgram(new String(Files.readAllBytes(Paths.get(f)), StandardCharsets.UTF_8));
+            }
+        }
+        tester.checkLists(listCount, seed);
+        System.out.println("Compiled grammar: " + tester.compiled.programSize() + " words, "
+                + tester.compiled.interpretedCount() + " parsers interpreted");
+        System.out.println(tester.lines + " lines, " + tester.lists + " lists, " + tester.matches + " assemblies, "
+                + tester.differences + " differences");
+        if (tester.differences > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * @(#)ConversionCache.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import utensil.XXHash64;
+
+/**
+ * A ConversionCache keeps the XML made from COBOL programs, on disk,
+ * so that a program that has not changed since it was last converted
+ * need not be parsed again.
+ * <p>
+ * An entry is keyed by the 64-bit xxHash of the program's bytes,
+ * seeded with a hash of a version string. The version string is
+ * <code>CobolParser.GRAMMAR_VERSION</code>, together with whatever
+ * options change the output; a new grammar, or different options,
+ * therefore never sees the XML of the old. Each entry is one file,
+ * named for its key, in the cache directory.
+ * <p>
+ * On a hit, the cached XML is copied to its destination with
+ * <code>FileChannel.transferTo()</code>, which lets the operating
+ * system move the bytes without them passing through the Java heap.
+ * The cache is bounded by the total size of its files; when it grows
+ * past its budget, the least recently used entries are deleted. Use
+ * is recorded in each file's modification time, so the order
+ * survives from one run to the next.
+ * <p>
+ * A cache may be shared by the threads of a batch.
+ */
+public class ConversionCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ConversionCache.class.getName());
+
+    /**
+     * The size of a cache's files, in bytes, unless told otherwise.
+     */
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    /*
+     * The extension of a cache entry's file
+     */
+    protected static final String EXTENSION = ".xml";
+
+    protected final Path dir;
+    protected final long seed;
+    protected final long maxBytes;
+
+    /*
+     * The size of each entry, least recently used first
+     */
+    protected final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    protected long totalBytes;
+    protected long hits;
+    protected long misses;
+    protected long evictions;
+
+    /**
+     * Opens the cache in the given directory, creating the directory
+     * if need be, and takes stock of the entries already there.
+     *
+     * @param dir the cache directory
+     * @param version the grammar version and options the entries are
+     *        for
+     * @param maxBytes the most bytes the entries may take up
+     * @throws IOException if the directory cannot be made or read
+     */
+    public ConversionCache(Path dir, String version, long maxBytes) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.seed = XXHash64.hash(version, 0);
+        this.maxBytes = maxBytes;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.tmp")) {
+            for (Path p : ds) {
+                // left by a run that stopped while storing
+                Files.deleteIfExists(p);
+            }
+        }
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path p : ds) {
+                files.add(p);
+            }
+        }
+        final Map<Path, FileTime> used = new HashMap<Path, FileTime>();
+        for (Path p : files) {
+            used.put(p, Files.getLastModifiedTime(p));
+        }
+        Collections.sort(files, new Comparator<Path>() {
+            public int compare(Path a, Path b) {
+                return used.get(a).compareTo(used.get(b));
+            }
+        });
+        for (Path p : files) {
+            long size = Files.size(p);
+            entries.put(p.getFileName().toString(), size);
+            totalBytes += size;
+        }
+        synchronized (this) {
+            evict();
+        }
+    }
+
+    /**
+     * Returns the key of a COBOL source file as it is now.
+     *
+     * @param source a COBOL source file
+     * @return the key of the source's content
+     * @throws IOException if the source cannot be read
+     */
+    public long keyFor(Path source) throws IOException {
+        return XXHash64.hash(source, seed);
+    }
+
+    /**
+     * Copies the XML cached under the given key to the target, if
+     * there is any.
+     *
+     * @param key a source's key
+     * @param target the file to write
+     * @return true, if the XML was cached and has been copied
+     * @throws IOException if the target cannot be written
+     */
+    public boolean copyTo(long key, Path target) throws IOException {
+        String name = nameFor(key);
+        synchronized (this) {
+            if (entries.get(name) == null) {
+                misses++;
+                return false;
+            }
+        }
+        Path p = dir.resolve(name);
+        try (FileChannel in = FileChannel.open(p, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            transfer(in, out);
+        } catch (NoSuchFileException e) {
+            // evicted by another thread meanwhile
+            synchronized (this) {
+                misses++;
+            }
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the entry still served; only its place in the order is lost
+        }
+        synchronized (this) {
+            hits++;
+        }
+        return true;
+    }
+
+    /**
+     * Stores the XML made from a source under the source's key.
+     *
+     * @param key the source's key
+     * @param xml the XML made from the source
+     * @throws IOException if the XML cannot be read or the cache
+     *         cannot be written
+     */
+    public void store(long key, Path xml) throws IOException {
+        String name = nameFor(key);
+        Path temp = Files.createTempFile(dir, name, ".tmp");
+        try {
+            try (FileChannel in = FileChannel.open(xml, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                transfer(in, out);
+            }
+            long size = Files.size(temp);
+            try {
+                Files.move(temp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            }
+            synchronized (this) {
+                Long old = entries.put(name, size);
+                totalBytes += size - (old == null ? 0 : old);
+                evict();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /*
+     * Copy the whole of one channel to another; transferTo() may move
+     * fewer bytes than asked.
+     */
+    protected static void transfer(FileChannel in, FileChannel out) throws IOException {
+        long size = in.size();
+        long pos = 0;
+        while (pos < size) {
+            pos += in.transferTo(pos, size - pos, out);
+        }
+    }
+
+    /*
+     * Delete least recently used entries until the cache is within its
+     * budget.
+     */
+    protected void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            try {
+                Files.deleteIfExists(dir.resolve(e.getKey()));
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot evict " + e.getKey() + " from " + dir, ex);
+            }
+            totalBytes -= e.getValue();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /*
+     * The name of the file an entry is kept in.
+     */
+    protected static String nameFor(long key) {
+        return String.format("%016x", key) + EXTENSION;
+    }
+
+    /**
+     * Returns the number of lookups that found an entry.
+     *
+     * @return the number of hits
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found no entry.
+     *
+     * @return the number of misses
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries deleted to stay within budget.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns a textual description of this cache and its counts.
+     *
+     * @return a textual description of this cache
+     */
+    @Override
+    public synchronized String toString() {
+        return "ConversionCache[" + dir + ": " + entries.size() + " entries, " + totalBytes + " bytes, "
+                + hits + " hits, " + misses + " misses, " + evictions + " evictions]";
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * @(#)ConversionCacheTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+/**
+ * A ConversionCacheTester checks that a <code>ConversionCache</code>
+ * serves what was stored, drops the least recently used entries to
+ * stay within its budget, and keeps both its entries and their order
+ * from one run to the next.
+ * <p>
+ * In a temporary directory, it stores the XML of a few sources in a
+ * small cache and checks the hits, misses and evictions that follow;
+ * opens the cache again, as the next run would, and checks that the
+ * entries are still there and that the budget is still kept in order
+ * of use; and checks that a different version keys the same source
+ * differently, and that a store left half done is cleaned up.
+ * <p>
+ * The tester exits with status 1 if any check fails.
+ */
+public class ConversionCacheTester {
+
+    /*
+     * The size of each made-up XML file, and a budget that holds two
+     */
+    protected static final int XML_BYTES = 64;
+    protected static final long BUDGET = 2 * XML_BYTES + XML_BYTES / 2;
+
+    protected Path dir;
+    protected long checks;
+    protected long failures;
+
+    /**
+     * Constructs a tester that works in the given directory.
+     *
+     * @param dir a directory for the files of the test
+     */
+    public ConversionCacheTester(Path dir) {
+        this.dir = dir;
+    }
+
+    /*
+     * Record a check, reporting it if it failed.
+     */
+    protected void expect(boolean ok, String message) {
+        checks++;
+        if (!ok) {
+            System.out.println("FAILS: " + message);
+            failures++;
+        }
+    }
+
+    /*
+     * Write a file in the directory, and return its path.
+     */
+    protected Path write(String name, String text) throws IOException {
+        return Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Return XML_BYTES bytes of made-up XML for a program.
+     */
+    protected static String xml(String program) {
+        StringBuilder sb = new StringBuilder("<cobol><Program-ID>" + program + "</Program-ID>");
+        while (sb.length() < XML_BYTES - "</cobol>".length()) {
+            sb.append(' ');
+        }
+        return sb.append("</cobol>").toString();
+    }
+
+    /*
+     * Return true if the cache serves the given XML for a key.
+     */
+    protected boolean serves(ConversionCache cache, long key, String xml) throws IOException {
+        Path target = dir.resolve("target.xml");
+        Files.deleteIfExists(target);
+        return cache.copyTo(key, target)
+                && Arrays.equals(Files.readAllBytes(target), xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs the checks.
+     *
+     * @throws IOException if a file cannot be written or read
+     */
+    public void check() throws IOException {
+        Path cacheDir = dir.resolve("cache");
+        long[] keys = new long[3];
+        String[] names = { "A", "B", "C" };
+
+        ConversionCache cache = new ConversionCache(cacheDir, "v1", BUDGET);
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = cache.keyFor(write(names[i] + ".cbl", "PROGRAM-ID. " + names[i] + "."));
+        }
+        expect(keys[0] == cache.keyFor(write("A2.cbl", "PROGRAM-ID. A.")), "the same source has two keys");
+        expect(keys[0] != keys[1], "two sources have the same key");
+        ConversionCache other = new ConversionCache(dir.resolve("other"), "v2", BUDGET);
+        expect(other.keyFor(dir.resolve("A.cbl")) != keys[0], "another version keys a source the same");
+
+        expect(!serves(cache, keys[0], xml("A")), "an empty cache served A");
+        expect(cache.misses() == 1, "the miss was not counted");
+        cache.store(keys[0], write("A.xml", xml("A")));
+        cache.store(keys[1], write("B.xml", xml("B")));
+        expect(serves(cache, keys[0], xml("A")), "the cache did not serve A");
+        expect(serves(cache, keys[1], xml("B")), "the cache did not serve B");
+        expect(cache.hits() == 2, "the cache counted " + cache.hits() + " hits, not 2");
+
+        // A is used again, so storing C evicts B, the least recently used
+        expect(serves(cache, keys[0], xml("A")), "the cache did not serve A again");
+        cache.store(keys[2], write("C.xml", xml("C")));
+        expect(cache.evictions() == 1, "the cache counted " + cache.evictions() + " evictions, not 1");
+        expect(!serves(cache, keys[1], xml("B")), "the cache served B after evicting it");
+        expect(!Files.exists(cacheDir.resolve(ConversionCache.nameFor(keys[1]))), "B's file was left");
+        expect(serves(cache, keys[0], xml("A")), "the cache evicted A, which was used more recently");
+        expect(serves(cache, keys[2], xml("C")), "the cache did not serve C");
+
+        // the next run finds both entries, and a store left half done
+        // by this one is cleaned up
+        Files.setLastModifiedTime(cacheDir.resolve(ConversionCache.nameFor(keys[0])), FileTime.fromMillis(2000000000000L));
+        Files.setLastModifiedTime(cacheDir.resolve(ConversionCache.nameFor(keys[2])), FileTime.fromMillis(1000000000000L));
+        Path temp = Files.write(cacheDir.resolve("0000000000000000.xml0123.tmp"), new byte[1]);
+        cache = new ConversionCache(cacheDir, "v1", BUDGET);
+        expect(!Files.exists(temp), "a store left half done was not cleaned up");
+        expect(serves(cache, keys[2], xml("C")), "C did not survive a restart");
+        expect(serves(cache, keys[0], xml("A")), "A did not survive a restart");
+
+        // with a smaller budget, the entry used least recently before
+        // the restart goes first
+        Files.setLastModifiedTime(cacheDir.resolve(ConversionCache.nameFor(keys[0])), FileTime.fromMillis(2000000000000L));
+        Files.setLastModifiedTime(cacheDir.resolve(ConversionCache.nameFor(keys[2])), FileTime.fromMillis(1000000000000L));
+        cache = new ConversionCache(cacheDir, "v1", XML_BYTES);
+        expect(cache.evictions() == 1, "a smaller budget evicted " + cache.evictions() + " entries, not 1");
+        expect(!serves(cache, keys[2], xml("C")), "the restarted cache kept C, used least recently");
+        expect(serves(cache, keys[0], xml("A")), "the restarted cache evicted A, used most recently");
+    }
+
+    /*
+     * Delete a directory and everything in it.
+     */
+    protected static void delete(Path p) throws IOException {
+        if (Files.isDirectory(p)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(p)) {
+                for (Path q : ds) {
+                    delete(q);
+                }
+            }
+        }
+        Files.deleteIfExists(p);
+    }
+
+    /**
+     * Runs the checks in a temporary directory.
+     *
+     * @param args ignored
+     * @throws IOException if a file cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("cache");
+        ConversionCacheTester t = new ConversionCacheTester(dir);
+        try {
+            t.check();
+        } finally {
+            delete(dir);
+        }
+        System.out.println(t.checks + " checks, " + t.failures + " failures");
+        if (t.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
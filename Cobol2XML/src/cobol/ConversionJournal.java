@@ -0,0 +1,255 @@
+/*
+ * @(#)ConversionJournal.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A ConversionJournal remembers which inputs of a batch have been
+ * converted, so that a batch that stops partway can be run again and
+ * pick up where it left off.
+ * <p>
+ * The journal is an append-only manifest, one line per completed
+ * conversion:
+ * <pre>
+ *     sourceHash  targetHash  version  source  target
+ * </pre>
+ * separated by tabs, where the hashes are SHA-256 digests of the
+ * input's and the output's content, and the version describes the
+ * grammar and options the output was made with. Each line is flushed as it is
+ * written, and a line cut short by a crash is ignored when the
+ * journal is read back, so the manifest never claims more than was
+ * done. Where a source appears more than once, its last line counts.
+ * <p>
+ * An input is up to date if the journal has a line for it with the
+ * same output and the journal's version, and both the input and the
+ * output still hash as they did then. Anything else, including an
+ * output that has since been changed or deleted, or one made by
+ * another grammar or with other options, is converted again.
+ */
+public class ConversionJournal implements Closeable {
+
+    /*
+     * The first line of a new manifest
+     */
+    protected static final String HEADER = "# cobol2xml conversion journal: sourceHash targetHash version source target";
+
+    protected final Path manifest;
+    protected final String version;
+    protected final Map<String, Entry> entries = new HashMap<String, Entry>();
+    protected final BufferedWriter out;
+    protected int skipped;
+    protected int recorded;
+
+    /**
+     * Opens the journal kept in the given manifest, reading what it
+     * already records, and creating it if it does not exist.
+     *
+     * @param manifest the manifest file
+     * @param version a description of the grammar and options that
+     *        the outputs depend on; lines recorded with another
+     *        version are not up to date
+     * @throws IOException if the manifest cannot be read or opened
+     */
+    public ConversionJournal(Path manifest, String version) throws IOException {
+        this.manifest = manifest;
+        this.version = version;
+        boolean exists = Files.exists(manifest);
+        boolean cutShort = false;
+        if (exists) {
+            byte[] b = Files.readAllBytes(manifest);
+            cutShort = b.length > 0 && b[b.length - 1] != '\n';
+            load(new String(b, StandardCharsets.UTF_8).split("\r?\n"));
+        }
+        out = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (!exists) {
+            out.write(HEADER);
+            out.newLine();
+        } else if (cutShort) {
+            // end the broken line, so the next one is not joined to it
+            out.newLine();
+        }
+        out.flush();
+    }
+
+    /*
+     * Read the lines of an existing manifest, ignoring comments and
+     * lines that are incomplete.
+     */
+    protected void load(String[] lines) {
+        for (String line : lines) {
+            if (line.startsWith("#")) {
+                continue;
+            }
+            String[] f = line.split("\t");
+            if (f.length != 5 || f[0].length() != 64 || f[1].length() != 64) {
+                continue;
+            }
+            entries.put(f[3], new Entry(f[0], f[1], f[2], f[4]));
+        }
+    }
+
+    /**
+     * Returns true if the source has been converted to the target
+     * before, with this journal's version, and neither has changed
+     * since.
+     *
+     * @param source a COBOL source file
+     * @param target the XML file it is converted to
+     * @return true, if the conversion can be skipped
+     * @throws IOException if either file cannot be read
+     */
+    public boolean isUpToDate(Path source, Path target) throws IOException {
+        Entry e;
+        synchronized (this) {
+            e = entries.get(key(source));
+        }
+        boolean upToDate = e != null
+                && e.version.equals(version)
+                && e.target.equals(key(target))
+                && Files.isRegularFile(target)
+                && e.sourceHash.equals(hash(source))
+                && e.targetHash.equals(hash(target));
+        if (upToDate) {
+            synchronized (this) {
+                skipped++;
+            }
+        }
+        return upToDate;
+    }
+
+    /**
+     * Records that the source has been converted to the target, as
+     * they are now, with this journal's version.
+     *
+     * @param source a COBOL source file
+     * @param target the XML file it was converted to
+     * @throws IOException if either file cannot be read, or the
+     *         manifest cannot be written
+     */
+    public void record(Path source, Path target) throws IOException {
+        Entry e = new Entry(hash(source), hash(target), version, key(target));
+        String s = key(source);
+        synchronized (this) {
+            out.write(e.sourceHash + "\t" + e.targetHash + "\t" + e.version + "\t" + s + "\t" + e.target);
+            out.newLine();
+            out.flush();
+            entries.put(s, e);
+            recorded++;
+        }
+    }
+
+    /**
+     * Returns the number of conversions this journal has found up to
+     * date.
+     *
+     * @return the number of conversions skipped
+     */
+    public synchronized int skipped() {
+        return skipped;
+    }
+
+    /**
+     * Returns the number of conversions this journal has recorded.
+     *
+     * @return the number of conversions recorded
+     */
+    public synchronized int recorded() {
+        return recorded;
+    }
+
+    /**
+     * Closes the manifest.
+     *
+     * @throws IOException if the manifest cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Returns the SHA-256 digest of a file's content, in hex.
+     *
+     * @param file a file
+     * @return the file's digest
+     * @throws IOException if the file cannot be read
+     */
+    public static String hash(Path file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has SHA-256
+            throw new InternalError(e);
+        }
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                md.update(buf, 0, n);
+            }
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /*
+     * The form in which a file is recorded.
+     */
+    protected static String key(Path p) {
+        return p.toAbsolutePath().normalize().toString();
+    }
+
+    /*
+     * What the journal records of one conversion.
+     */
+    protected static final class Entry {
+        final String sourceHash;
+        final String targetHash;
+        final String version;
+        final String target;
+
+        Entry(String sourceHash, String targetHash, String version, String target) {
+            this.sourceHash = sourceHash;
+            this.targetHash = targetHash;
+            this.version = version;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * @(#)ConversionJournalTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A ConversionJournalTester checks that a batch can stop and be run
+ * again with a <code>ConversionJournal</code>, and that only what is
+ * still up to date is skipped.
+ * <p>
+ * In a temporary directory, it records some conversions, closes the
+ * journal and opens it again, as a batch run after a crash would. It
+ * checks that the recorded conversions are up to date and the others
+ * are not; that a line cut short by a crash is ignored and does not
+ * spoil the next; and that changing a source or a target, deleting a
+ * target, or changing the version makes a conversion out of date.
+ * <p>
+ * The tester exits with status 1 if any check fails.
+ */
+public class ConversionJournalTester {
+
+    protected Path dir;
+    protected long checks;
+    protected long failures;
+
+    /**
+     * Constructs a tester that works in the given directory.
+     *
+     * @param dir a directory for the files of the test
+     */
+    public ConversionJournalTester(Path dir) {
+        this.dir = dir;
+    }
+
+    /*
+     * Record a check, reporting it if it failed.
+     */
+    protected void expect(boolean ok, String message) {
+        checks++;
+        if (!ok) {
+            System.out.println("FAILS: " + message);
+            failures++;
+        }
+    }
+
+    /*
+     * Write a file in the directory, and return its path.
+     */
+    protected Path write(String name, String text) throws IOException {
+        return Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs the checks.
+     *
+     * @throws IOException if a file cannot be written or read
+     */
+    public void check() throws IOException {
+        Path manifest = dir.resolve("journal.tsv");
+        Path a = write("A.cbl", "IDENTIFICATION DIVISION. PROGRAM-ID. A.");
+        Path b = write("B.cbl", "IDENTIFICATION DIVISION. PROGRAM-ID. B.");
+        Path ax = write("A.xml", "<cobol><Program-ID>A</Program-ID></cobol>");
+        Path bx = write("B.xml", "<cobol><Program-ID>B</Program-ID></cobol>");
+
+        expect(ConversionJournal.hash(write("abc", "abc"))
+                .equals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"),
+                "the digest of \"abc\" is not SHA-256's");
+
+        // a first run records A, then stops
+        try (ConversionJournal j = new ConversionJournal(manifest, "v1")) {
+            expect(!j.isUpToDate(a, ax), "A is up to date in a new journal");
+            j.record(a, ax);
+            expect(j.isUpToDate(a, ax), "A is not up to date once recorded");
+        }
+
+        // the second run resumes: A is done, B is not
+        try (ConversionJournal j = new ConversionJournal(manifest, "v1")) {
+            expect(j.isUpToDate(a, ax), "A is not up to date when the journal is reopened");
+            expect(!j.isUpToDate(b, bx), "B is up to date though it was never recorded");
+            expect(!j.isUpToDate(a, bx), "A is up to date for another target");
+            expect(j.skipped() == 1, "the journal counted " + j.skipped() + " skips, not 1");
+        }
+
+        // a crash leaves a line cut short
+        Files.write(manifest, ("0123456789abcdef\t" + ConversionJournal.key(b)).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        try (ConversionJournal j = new ConversionJournal(manifest, "v1")) {
+            expect(j.isUpToDate(a, ax), "A is not up to date after a line was cut short");
+            expect(!j.isUpToDate(b, bx), "B is up to date from a line cut short");
+            j.record(b, bx);
+        }
+        try (ConversionJournal j = new ConversionJournal(manifest, "v1")) {
+            expect(j.isUpToDate(b, bx), "the line after one cut short was lost");
+            expect(j.isUpToDate(a, ax), "A is not up to date after B was recorded");
+        }
+
+        // another version of the grammar or options
+        try (ConversionJournal j = new ConversionJournal(manifest, "v2")) {
+            expect(!j.isUpToDate(a, ax), "A is up to date for another version");
+            j.record(a, ax);
+        }
+        try (ConversionJournal j = new ConversionJournal(manifest, "v2")) {
+            expect(j.isUpToDate(a, ax), "the last line for A does not count");
+        }
+
+        // changes to a source or a target
+        try (ConversionJournal j = new ConversionJournal(manifest, "v1")) {
+            write("B.cbl", "IDENTIFICATION DIVISION. PROGRAM-ID. B2.");
+            expect(!j.isUpToDate(b, bx), "B is up to date after its source changed");
+            write("B.cbl", "IDENTIFICATION DIVISION. PROGRAM-ID. B.");
+            expect(j.isUpToDate(b, bx), "B is not up to date after its source was put back");
+            write("B.xml", "<cobol/>");
+            expect(!j.isUpToDate(b, bx), "B is up to date after its target changed");
+            Files.delete(bx);
+            expect(!j.isUpToDate(b, bx), "B is up to date after its target was deleted");
+        }
+    }
+
+    /**
+     * Runs the checks in a temporary directory.
+     *
+     * @param args ignored
+     * @throws IOException if a file cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        ConversionJournalTester t = new ConversionJournalTester(dir);
+        try {
+            t.check();
+        } finally {
+            for (String name : new String[] { "journal.tsv", "A.cbl", "B.cbl", "A.xml", "B.xml", "abc" }) {
+                Files.deleteIfExists(dir.resolve(name));
+            }
+            Files.delete(dir);
+        }
+        System.out.println(t.checks + " checks, " + t.failures + " failures");
+        if (t.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,516 @@
+/*
+ * @(#)CopybookLibrary.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import parse.tokens.CompositeTokenString;
+import parse.tokens.FixedFormatReader;
+import parse.tokens.PackedTokenString;
+import parse.tokens.ReplacingTokenString;
+import parse.tokens.Token;
+import parse.tokens.TokenString;
+import parse.tokens.Tokenizer;
+import utensil.FileString;
+
+/**
+ * A CopybookLibrary finds the copybooks a program's COPY statements
+ * name, and splices their tokens into the program's.
+ * <p>
+ * Copybooks are looked for in each directory of a search path in
+ * turn, under their own name and under their name with each of a list
+ * of extensions. A copybook found is tokenized once and kept, in a
+ * least-recently-used cache bounded by the total number of tokens it
+ * holds, keyed by the copybook's path and modification time; a
+ * copybook that changes on disk is read again. The cached tokens are
+ * packed, and are shared between expansions and between threads.
+ * <p>
+ * <code>expand()</code> replaces each statement
+ * <pre>
+ *     COPY name [OF|IN library] [REPLACING operand BY operand ...].
+ * </pre>
+ * with the named copybook's tokens, themselves expanded, seen through
+ * a <code>ReplacingTokenString</code> if the statement replaces
+ * anything. An operand is a single token or pseudo-text between
+ * <code>==</code> delimiters. Nothing is copied: the result is a
+ * <code>CompositeTokenString</code> of stretches of the program and
+ * of the cached copybooks.
+ */
+public class CopybookLibrary {
+
+    /**
+     * The number of tokens the cache holds, by default.
+     */
+    public static final long DEFAULT_MAX_TOKENS = 1 << 20;
+
+    /**
+     * The extensions tried, after the bare name, by default.
+     */
+    public static final String[] DEFAULT_EXTENSIONS = { ".cpy", ".CPY", ".cbl", ".cob" };
+
+    protected List<Path> searchPath = new ArrayList<Path>();
+    protected List<String> extensions = new ArrayList<String>(Arrays.asList(DEFAULT_EXTENSIONS));
+    protected String charsetName = Charset.defaultCharset().name();
+    protected boolean fixedFormat;
+    protected long maxTokens;
+
+    /*
+     * The cache, its size in tokens, and its counts
+     */
+    protected LinkedHashMap<Key, TokenString> cache = new LinkedHashMap<Key, TokenString>(16, 0.75f, true);
+    protected long cachedTokens;
+    protected long hits;
+    protected long misses;
+    protected long evictions;
+
+    /**
+     * Constructs a library with an empty search path and a cache of
+     * the default size.
+     */
+    public CopybookLibrary() {
+        this(DEFAULT_MAX_TOKENS);
+    }
+
+    /**
+     * Constructs a library with an empty search path and a cache of
+     * the given number of tokens.
+     *
+     * @param maxTokens the most tokens the cache may hold
+     */
+    public CopybookLibrary(long maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Adds a directory to the end of the search path.
+     *
+     * @param dir a directory to look for copybooks in
+     * @return this
+     */
+    public CopybookLibrary addDirectory(Path dir) {
+        searchPath.add(dir);
+        return this;
+    }
+
+    /**
+     * Adds each directory of a path such as
+     * <code>copy:/usr/share/copy</code>, separated as the platform
+     * separates paths, to the end of the search path.
+     *
+     * @param path the directories to look for copybooks in
+     * @return this
+     */
+    public CopybookLibrary addPath(String path) {
+        for (String dir : path.split(java.io.File.pathSeparator)) {
+            if (!dir.isEmpty()) {
+                addDirectory(Paths.get(dir));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Sets the extensions to try, after the bare name.
+     *
+     * @param extensions the extensions, such as ".cpy"
+     * @return this
+     */
+    public CopybookLibrary setExtensions(String... extensions) {
+        this.extensions = new ArrayList<String>(Arrays.asList(extensions));
+        return this;
+    }
+
+    /**
+     * Sets the charset copybooks are read in.
+     *
+     * @param charsetName the name of the charset
+     * @return this
+     */
+    public CopybookLibrary setCharsetName(String charsetName) {
+        this.charsetName = charsetName;
+        return this;
+    }
+
+    /**
+     * Sets whether copybooks are in fixed format, and so are read
+     * through a <code>FixedFormatReader</code>.
+     *
+     * @param fixedFormat true, if copybooks are in fixed format
+     * @return this
+     */
+    public CopybookLibrary setFixedFormat(boolean fixedFormat) {
+        this.fixedFormat = fixedFormat;
+        return this;
+    }
+
+    /**
+     * Returns the file the named copybook is in.
+     *
+     * @param name the name a COPY statement gives
+     * @return the copybook's file
+     * @throws FileNotFoundException if no directory of the search path
+     *         holds the copybook
+     */
+    public Path resolve(String name) throws FileNotFoundException {
+        for (Path dir : searchPath) {
+            Path p = dir.resolve(name);
+            if (Files.isRegularFile(p)) {
+                return p;
+            }
+            for (String ext : extensions) {
+                p = dir.resolve(name + ext);
+                if (Files.isRegularFile(p)) {
+                    return p;
+                }
+            }
+        }
+        throw new FileNotFoundException("Copybook " + name + " is not on the search path " + searchPath);
+    }
+
+    /**
+     * Returns the tokens of the copybook in the given file, from the
+     * cache if it holds them for the file as it is now.
+     *
+     * @param file a copybook's file
+     * @return the copybook's tokens
+     * @throws IOException if the copybook cannot be read
+     */
+    public TokenString tokens(Path file) throws IOException {
+        Path p = file.toAbsolutePath().normalize();
+        Key key = new Key(p, Files.getLastModifiedTime(p).toMillis());
+        TokenString ts;
+        synchronized (this) {
+            ts = cache.get(key);
+            if (ts != null) {
+                hits++;
+                return ts;
+            }
+            misses++;
+        }
+        ts = tokenize(p);
+        synchronized (this) {
+            if (ts.length() <= maxTokens && cache.put(key, ts) == null) {
+                cachedTokens += ts.length();
+                evict();
+            }
+        }
+        return ts;
+    }
+
+    /*
+     * Read and tokenize a copybook.
+     */
+    protected TokenString tokenize(Path p) throws IOException {
+        Reader r = FileString.readerFromFileNamed(p.toString(), charsetName);
+        if (fixedFormat) {
+            r = new FixedFormatReader(r);
+        }
+        PackedTokenString ts = new PackedTokenString();
+        try {
+            Tokenizer t = CobolParser.tokenizer();
+            t.setReader(r);
+            Token tok;
+            while ((tok = t.nextToken()).ttype() != Token.TT_EOF) {
+                ts.add(tok);
+            }
+        } finally {
+            r.close();
+        }
+        return ts;
+    }
+
+    /*
+     * Drop least recently used copybooks until the cache is within its
+     * bound.
+     */
+    protected void evict() {
+        Iterator<Map.Entry<Key, TokenString>> it = cache.entrySet().iterator();
+        while (cachedTokens > maxTokens && it.hasNext()) {
+            cachedTokens -= it.next().getValue().length();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Returns the given tokens with every COPY statement replaced by
+     * the tokens of the copybook it names. If there is no COPY
+     * statement, the given tokens are returned as they are.
+     *
+     * @param source a program's tokens
+     * @return the program's tokens with copybooks spliced in
+     * @throws IOException if a copybook cannot be found or read, or a
+     *         copybook copies itself
+     */
+    public TokenString expand(TokenString source) throws IOException {
+        return expand(source, new ArrayDeque<Path>());
+    }
+
+    /*
+     * Expand the COPY statements of source, where the copybooks being
+     * expanded are open.
+     */
+    protected TokenString expand(TokenString source, ArrayDeque<Path> open) throws IOException {
+        int n = source.length();
+        CompositeTokenString out = null;
+        int done = 0;
+        for (int i = 0; i < n; i++) {
+            Token t = source.tokenAt(i);
+            if (!t.isWord() || !t.sval().equalsIgnoreCase("COPY") || i + 1 >= n) {
+                continue;
+            }
+            CopyStatement copy = parseCopy(source, i);
+            if (out == null) {
+                out = new CompositeTokenString();
+            }
+            out.append(source, done, i - done);
+            out.append(copied(copy, open));
+            done = copy.end;
+            i = copy.end - 1;
+        }
+        if (out == null) {
+            return source;
+        }
+        out.append(source, done, n - done);
+        return out;
+    }
+
+    /*
+     * Return the expanded, replaced tokens of the copybook a COPY
+     * statement names.
+     */
+    protected TokenString copied(CopyStatement copy, ArrayDeque<Path> open) throws IOException {
+        Path file = resolve(copy.name).toAbsolutePath().normalize();
+        if (open.contains(file)) {
+            throw new IOException("Copybook " + copy.name + " copies itself, through " + open);
+        }
+        open.push(file);
+        try {
+            TokenString ts = expand(tokens(file), open);
+            if (copy.patterns.isEmpty()) {
+                return ts;
+            }
+            ReplacingTokenString r = new ReplacingTokenString(ts);
+            for (int k = 0; k < copy.patterns.size(); k++) {
+                r.replace(copy.patterns.get(k), copy.replacements.get(k));
+            }
+            return r;
+        } finally {
+            open.pop();
+        }
+    }
+
+    /*
+     * Read the COPY statement that starts at i.
+     */
+    protected CopyStatement parseCopy(TokenString ts, int i) throws IOException {
+        int n = ts.length();
+        CopyStatement copy = new CopyStatement();
+        int j = i + 1;
+        copy.name = unquote(ts.tokenAt(j++));
+        if (j + 1 < n && isWord(ts.tokenAt(j), "OF", "IN")) {
+            j += 2;
+        }
+        if (j < n && isWord(ts.tokenAt(j), "REPLACING")) {
+            j++;
+            while (j < n && !isFullStop(ts.tokenAt(j))) {
+                ArrayList<Token> pattern = new ArrayList<Token>();
+                j = operand(ts, j, pattern);
+                if (j >= n || !isWord(ts.tokenAt(j), "BY")) {
+                    throw new IOException("REPLACING without BY in COPY " + copy.name);
+                }
+                ArrayList<Token> replacement = new ArrayList<Token>();
+                j = operand(ts, j + 1, replacement);
+                if (pattern.isEmpty()) {
+                    throw new IOException("Empty REPLACING operand in COPY " + copy.name);
+                }
+                copy.patterns.add(pattern.toArray(new Token[pattern.size()]));
+                copy.replacements.add(replacement.toArray(new Token[replacement.size()]));
+            }
+        }
+        if (j < n && isFullStop(ts.tokenAt(j))) {
+            j++;
+        }
+        copy.end = j;
+        return copy;
+    }
+
+    /*
+     * Read a REPLACING operand at j into the list, returning the index
+     * after it. An operand is pseudo-text between == delimiters, or a
+     * single token.
+     */
+    protected int operand(TokenString ts, int j, List<Token> into) {
+        int n = ts.length();
+        if (isPseudoTextDelimiter(ts, j)) {
+            j += 2;
+            while (j < n && !isPseudoTextDelimiter(ts, j)) {
+                into.add(ts.tokenAt(j++));
+            }
+            return Math.min(n, j + 2);
+        }
+        if (j < n) {
+            into.add(ts.tokenAt(j++));
+        }
+        return j;
+    }
+
+    /*
+     * Return true if the tokens at j are "=" "=", which the tokenizer
+     * makes of a pseudo-text delimiter.
+     */
+    protected static boolean isPseudoTextDelimiter(TokenString ts, int j) {
+        return j + 1 < ts.length() && isSymbol(ts.tokenAt(j), "=") && isSymbol(ts.tokenAt(j + 1), "=");
+    }
+
+    protected static boolean isFullStop(Token t) {
+        return isSymbol(t, ".");
+    }
+
+    protected static boolean isSymbol(Token t, String s) {
+        return t.isSymbol() && t.sval().equals(s);
+    }
+
+    protected static boolean isWord(Token t, String... words) {
+        if (!t.isWord()) {
+            return false;
+        }
+        for (String w : words) {
+            if (t.sval().equalsIgnoreCase(w)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Return a copybook name, without the quotes of a literal.
+     */
+    protected static String unquote(Token t) {
+        String s = t.sval();
+        if (t.isQuotedString() && s.length() >= 2) {
+            return s.substring(1, s.length() - 1);
+        }
+        return s;
+    }
+
+    /**
+     * Returns the number of lookups the cache answered.
+     *
+     * @return the number of lookups the cache answered
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of copybooks read because the cache did not
+     * hold them.
+     *
+     * @return the number of copybooks read
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of copybooks dropped from the cache to keep
+     * it within its bound.
+     *
+     * @return the number of copybooks dropped from the cache
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of tokens the cache holds.
+     *
+     * @return the number of tokens the cache holds
+     */
+    public synchronized long cachedTokens() {
+        return cachedTokens;
+    }
+
+    /**
+     * Returns a textual description of this library's cache.
+     *
+     * @return a textual description of this library's cache
+     */
+    @Override
+    public synchronized String toString() {
+        return "CopybookLibrary" + searchPath + ": " + cache.size() + " copybooks, "
+                + cachedTokens + " tokens, " + hits + " hits, " + misses + " misses, "
+                + evictions + " evictions";
+    }
+
+    /*
+     * A COPY statement: the copybook it names, what it replaces, and
+     * the index just past it.
+     */
+    protected static class CopyStatement {
+        String name;
+        List<Token[]> patterns = new ArrayList<Token[]>();
+        List<Token[]> replacements = new ArrayList<Token[]>();
+        int end;
+    }
+
+    /*
+     * A copybook's file as it was at a moment in time.
+     */
+    protected static final class Key {
+        final Path path;
+        final long modified;
+
+        Key(Path path, long modified) {
+            this.path = path;
+            this.modified = modified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return modified == k.modified && path.equals(k.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + (int) (modified ^ (modified >>> 32));
+        }
+    }
+}
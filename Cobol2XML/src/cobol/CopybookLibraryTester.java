@@ -0,0 +1,191 @@
+/*
+ * @(#)CopybookLibraryTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import parse.tokens.Token;
+import parse.tokens.TokenString;
+import parse.tokens.Tokenizer;
+
+/**
+ * A CopybookLibraryTester checks that a <code>CopybookLibrary</code>
+ * splices copybooks into a program and applies their
+ * <code>REPLACING</code> phrases as COBOL does.
+ * <p>
+ * It writes a few copybooks to a temporary directory, expands small
+ * programs that copy them, and compares the tokens each expansion
+ * gives with the tokens of the text expected. The cases replace
+ * single tokens and runs of pseudo-text, without regard to case;
+ * replace runs that cross from a copybook's own tokens into those
+ * of a copybook it copies, and back; delete a run; and leave alone a
+ * pattern that runs past the end of a copybook.
+ * <p>
+ * The tester exits with status 1 if any expansion differs.
+ */
+public class CopybookLibraryTester {
+
+    protected CopybookLibrary library;
+    protected long checks;
+    protected long failures;
+
+    /**
+     * Constructs a tester that reads copybooks from the given
+     * directory.
+     *
+     * @param dir the directory of the copybooks
+     */
+    public CopybookLibraryTester(Path dir) {
+        library = new CopybookLibrary().addDirectory(dir);
+    }
+
+    /*
+     * Return the tokens of some COBOL text.
+     */
+    protected static TokenString tokens(String s) throws IOException {
+        Tokenizer t = CobolParser.tokenizer();
+        t.setString(s);
+        ArrayList<Token> tokens = new ArrayList<Token>();
+        Token tok;
+        while ((tok = t.nextToken()).ttype() != Token.TT_EOF) {
+            tokens.add(tok);
+        }
+        return new TokenString(tokens.toArray(new Token[tokens.size()]));
+    }
+
+    /*
+     * Return the text of a token string, a blank between each token.
+     */
+    protected static String text(TokenString ts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ts.length(); i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(ts.tokenAt(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Expands a program, and returns true if its tokens are those of
+     * the expected text.
+     *
+     * @param name a name for the case
+     * @param program the text of the program
+     * @param expected the text the expansion should give
+     * @return true, if the expansion gives the expected tokens
+     * @throws IOException if a copybook cannot be read
+     */
+    public boolean check(String name, String program, String expected) throws IOException {
+        checks++;
+        TokenString actual = library.expand(tokens(program));
+        TokenString want = tokens(expected);
+        boolean same = actual.length() == want.length();
+        for (int i = 0; same && i < want.length(); i++) {
+            same = want.tokenAt(i).equals(actual.tokenAt(i));
+        }
+        if (!same) {
+            System.out.println("FAILS: " + name + "\n    expected: " + text(want) + "\n    actual:   " + text(actual));
+            failures++;
+        }
+        return same;
+    }
+
+    /**
+     * Checks that a copybook that copies itself is refused.
+     *
+     * @return true, if the expansion failed
+     */
+    public boolean checkSelfCopy() {
+        checks++;
+        try {
+            library.expand(tokens("COPY LOOP."));
+        } catch (IOException e) {
+            return true;
+        }
+        System.out.println("FAILS: a copybook that copies itself was expanded");
+        failures++;
+        return false;
+    }
+
+    /*
+     * Write a copybook to the directory.
+     */
+    protected static void write(Path dir, String name, String text) throws IOException {
+        Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks each case.
+     *
+     * @param args ignored
+     * @throws IOException if the copybooks cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("copybooks");
+        long failures;
+        try {
+            write(dir, "CUST.cpy", "01 CUST-REC. 05 CUST-NAME PIC X(30). 05 CUST-ID PIC 9(5).");
+            write(dir, "OUTER.cpy", "01 OUTER. COPY INNER. 05 TAIL PIC X.");
+            write(dir, "INNER.cpy", "05 HEAD PIC X.");
+            write(dir, "LOOP.cpy", "COPY LOOP.");
+            CopybookLibraryTester t = new CopybookLibraryTester(dir);
+            t.check("no replacing", "A. COPY CUST. B.",
+                    "A. 01 CUST-REC. 05 CUST-NAME PIC X(30). 05 CUST-ID PIC 9(5). B.");
+            t.check("one token, any case", "COPY CUST REPLACING cust-id BY ACCT-ID.",
+                    "01 CUST-REC. 05 CUST-NAME PIC X(30). 05 ACCT-ID PIC 9(5).");
+            t.check("pseudo-text", "COPY CUST REPLACING ==CUST-NAME PIC X(30)== BY ==NAME-OUT PIC X(40)==.",
+                    "01 CUST-REC. 05 NAME-OUT PIC X(40). 05 CUST-ID PIC 9(5).");
+            t.check("several operands", "COPY CUST REPLACING ==X(30)== BY ==X(9)== CUST-REC BY REC.",
+                    "01 REC. 05 CUST-NAME PIC X(9). 05 CUST-ID PIC 9(5).");
+            t.check("deletion", "COPY CUST REPLACING ==PIC X(30).== BY ====.",
+                    "01 CUST-REC. 05 CUST-NAME 05 CUST-ID PIC 9(5).");
+            t.check("into a nested copybook", "COPY OUTER REPLACING ==OUTER. 05 HEAD== BY ==OUTER-REC. 05 FIRST==.",
+                    "01 OUTER-REC. 05 FIRST PIC X. 05 TAIL PIC X.");
+            t.check("out of a nested copybook", "COPY OUTER REPLACING ==X. 05 TAIL== BY ==X(2). 05 LAST==.",
+                    "01 OUTER. 05 HEAD PIC X(2). 05 LAST PIC X.");
+            t.check("past the end", "COPY CUST REPLACING ==9(5). EXTRA== BY ==Z==.",
+                    "01 CUST-REC. 05 CUST-NAME PIC X(30). 05 CUST-ID PIC 9(5).");
+            t.checkSelfCopy();
+            t.checks++;
+            if (t.library.hits() == 0 || t.library.misses() != 4) {
+                System.out.println("FAILS: expected each copybook read once, but " + t.library);
+                t.failures++;
+            }
+            System.out.println(t.checks + " checks, " + t.failures + " failures");
+            failures = t.failures;
+        } finally {
+            for (String name : new String[] { "CUST.cpy", "OUTER.cpy", "INNER.cpy", "LOOP.cpy" }) {
+                Files.deleteIfExists(dir.resolve(name));
+            }
+            Files.delete(dir);
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * @(#)SentencePipeline.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import parse.Assembly;
+import parse.Parser;
+import parse.tokens.PackedTokenAssembly;
+import parse.tokens.PackedTokenString;
+import parse.tokens.Token;
+import parse.tokens.TokenAssembly;
+import parse.tokens.TokenString;
+import parse.tokens.TokenStringSource;
+import xmlwriter.CobolPayload;
+import xmlwriter.XMLStreamPayload;
+
+/**
+ * A SentencePipeline parses COBOL a sentence at a time and passes each
+ * statement it recognizes to a payload as soon as it is recognized.
+ * <p>
+ * COBOL's productions may span several sentences; "program-id.
+ * HELLO." is two. So the pipeline keeps a small window of the
+ * sentences it has not yet matched. When a sentence arrives, it
+ * matches the parser against the window, from the oldest sentence
+ * onward, and the first stretch of sentences the parser consumes
+ * entirely, or all but a closing full stop, is emitted. The window is
+ * then emptied. Once the window is full, its oldest sentence can no
+ * longer start a match and is dropped.
+ * <p>
+ * The work per sentence is bounded by the window, so the time taken
+ * grows with the length of the input, and output begins before the
+ * input has all been read.
+ * <p>
+ * A pipeline set to pack its windows joins them into a
+ * <code>PackedTokenString</code> and matches a
+ * <code>PackedTokenAssembly</code> of it.
+ */
+public class SentencePipeline {
+
+    /**
+     * The number of sentences a statement may span, by default.
+     */
+    public static final int DEFAULT_WINDOW = 4;
+
+    protected Parser parser;
+    protected CobolPayload payload;
+    protected int windowSize;
+    protected ArrayDeque<TokenString> window = new ArrayDeque<TokenString>();
+    protected boolean packed;
+
+    protected long sentences;
+    protected long emitted;
+    protected long dropped;
+
+    /**
+     * Constructs a pipeline that matches sentences against the given
+     * parser and passes what it recognizes to the given payload.
+     *
+     * @param parser the parser to match sentences with
+     * @param payload the payload to receive recognized statements
+     */
+    public SentencePipeline(Parser parser, CobolPayload payload) {
+        this(parser, payload, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Constructs a pipeline with a window of the given number of
+     * sentences.
+     *
+     * @param parser the parser to match sentences with
+     * @param payload the payload to receive recognized statements
+     * @param windowSize the most sentences one statement may span
+     */
+    public SentencePipeline(Parser parser, CobolPayload payload, int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window must hold at least one sentence");
+        }
+        this.parser = parser;
+        this.payload = payload;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Sets whether to join each window into a packed token string.
+     *
+     * @param packed true, to match packed assemblies
+     * @return this
+     */
+    public SentencePipeline setPacked(boolean packed) {
+        this.packed = packed;
+        return this;
+    }
+
+    /**
+     * Adds a sentence to the window and emits the first statement that
+     * the window now holds.
+     *
+     * @param sentence the tokens of one sentence
+     * @return true, if a statement was emitted
+     */
+    public boolean offer(TokenString sentence) {
+        sentences++;
+        window.addLast(sentence);
+        int size = window.size();
+        for (int from = 0; from < size; from++) {
+            Assembly out = match(from);
+            if (out != null) {
+                Cobol c = (Cobol) out.getTarget();
+                if (c != null) {
+                    payload.addElements(c);
+                }
+                emitted++;
+                dropped += from;
+                window.clear();
+                return true;
+            }
+        }
+        if (size == windowSize) {
+            window.removeFirst();
+            dropped++;
+        }
+        return false;
+    }
+
+    /**
+     * Offers every sentence of the source to the pipeline, then
+     * discards whatever is left unmatched.
+     *
+     * @param source the sentences to parse
+     * @return the number of statements emitted
+     */
+    public long run(TokenStringSource source) {
+        long before = emitted;
+        while (source.hasMoreTokenStrings()) {
+            offer(source.nextTokenString());
+        }
+        dropped += window.size();
+        window.clear();
+        return emitted - before;
+    }
+
+    /**
+     * Returns the number of sentences offered to this pipeline.
+     *
+     * @return the number of sentences offered to this pipeline
+     */
+    public long sentences() {
+        return sentences;
+    }
+
+    /**
+     * Returns the number of statements emitted.
+     *
+     * @return the number of statements emitted
+     */
+    public long emitted() {
+        return emitted;
+    }
+
+    /**
+     * Returns the number of sentences dropped without being matched.
+     *
+     * @return the number of sentences dropped without being matched
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /*
+     * Match the parser against the window from the given sentence on,
+     * returning the result if it uses up the tokens, or all but a
+     * closing full stop, or null otherwise.
+     */
+    protected Assembly match(int from) {
+        TokenString ts = join(from);
+        int n = ts.length();
+        Assembly in = ts instanceof PackedTokenString
+                ? new PackedTokenAssembly((PackedTokenString) ts)
+                : new TokenAssembly(ts);
+        Assembly out = parser.bestMatch(in);
+        if (out == null || out.elementsConsumed() == 0) {
+            return null;
+        }
+        int left = n - out.elementsConsumed();
+        if (left == 0) {
+            return out;
+        }
+        if (left == 1) {
+            Token last = ts.tokenAt(n - 1);
+            if (last.isSymbol() && last.sval().equals(".")) {
+                return out;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Return the tokens of the window from the given sentence on, as
+     * one token string.
+     */
+    protected TokenString join(int from) {
+        if (packed) {
+            PackedTokenString p = new PackedTokenString();
+            int i = 0;
+            for (TokenString s : window) {
+                if (i++ >= from) {
+                    for (int j = 0; j < s.length(); j++) {
+                        p.add(s.tokenAt(j));
+                    }
+                }
+            }
+            return p;
+        }
+        int n = 0;
+        int i = 0;
+        for (TokenString s : window) {
+            if (i++ >= from) {
+                n += s.length();
+            }
+        }
+        Token[] tokens = new Token[n];
+        int k = 0;
+        Iterator<TokenString> it = window.iterator();
+        for (i = 0; it.hasNext(); i++) {
+            TokenString s = it.next();
+            if (i < from) {
+                continue;
+            }
+            for (int j = 0; j < s.length(); j++) {
+                tokens[k++] = s.tokenAt(j);
+            }
+        }
+        return new TokenString(tokens);
+    }
+
+    /**
+     * Converts a COBOL source file to XML a sentence at a time.
+     *
+     * @param args the source file, the XML file to write, and
+     *             optionally the source's charset
+     * @throws IOException if the source cannot be read, or the XML
+     *         cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SentencePipeline source.cbl target.xml [charset]");
+            return;
+        }
+        String charsetName = args.length > 2 ? args[2] : Charset.defaultCharset().name();
+        SentenceSource source = new SentenceSource(CobolParser.tokenizer(args[0], charsetName));
+        try (XMLStreamPayload xmlp = new XMLStreamPayload(args[1])) {
+            SentencePipeline sp = new SentencePipeline(CobolParser.start(), xmlp);
+            sp.run(source);
+            System.out.println(sp.emitted() + " statements from " + sp.sentences()
+                    + " sentences, " + sp.dropped() + " unmatched");
+        }
+    }
+}
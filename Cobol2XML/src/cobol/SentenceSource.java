@@ -0,0 +1,79 @@
+/*
+ * @(#)SentenceSource.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol;
+
+import java.io.IOException;
+import java.util.Vector;
+
+import parse.tokens.Token;
+import parse.tokens.TokenStringSource;
+import parse.tokens.Tokenizer;
+
+/**
+ * A SentenceSource splits a COBOL token stream into sentences, each
+ * ending at a full stop.
+ * <p>
+ * Unlike its superclass, it keeps the full stop at the end of each
+ * sentence, because the COBOL grammar matches full stops itself.
+ * Only a symbol token ends a sentence, so the point in a number such
+ * as 1.5 does not.
+ */
+public class SentenceSource extends TokenStringSource {
+
+    /**
+     * Constructs a SentenceSource that reads sentences from the given
+     * tokenizer.
+     *
+     * @param tokenizer a tokenizer to read tokens from
+     */
+    public SentenceSource(Tokenizer tokenizer) {
+        super(tokenizer, ".");
+    }
+
+    /**
+     * Returns a Vector of the tokens in the source up to and including
+     * the next full stop, or up to the end of the source.
+     *
+     * @return a Vector of the tokens of the next sentence
+     */
+    @Override
+    protected Vector<Token> nextVector() {
+        Vector<Token> v = new Vector<>();
+        try {
+            Token tok;
+            while (true) {
+                tok = tokenizer.nextToken();
+                if (tok.ttype() == Token.TT_EOF) {
+                    break;
+                }
+                v.addElement(tok);
+                if (tok.isSymbol() && tok.sval().equals(delimiter)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new InternalError(
+                    "Problem tokenizing string: " + e);
+        }
+        return v;
+    }
+}
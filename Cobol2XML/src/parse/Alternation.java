@@ -10,6 +10,16 @@ import java.util.*;
  */
 public class Alternation<Assembly> extends CollectionParser<Assembly> {
 
+    /**
+     * The beam that bounds the assemblies returned, or null.
+     */
+    protected Beam beam;
+
+    /**
+     * The interner that collapses duplicate assemblies, or null.
+     */
+    protected AssemblyInterner interner;
+
     /**
      * Constructs an Alternation object with no name or sub-parsers.
      */
@@ -99,7 +109,60 @@ public class Alternation<Assembly> extends CollectionParser<Assembly> {
             add(out, p.matchAndAssemble(in));
         }
 
-        return out;
+        return prune(out);
+    }
+
+    /**
+     * Sets a beam to bound the assemblies this Alternation object
+     * returns; null returns them all.
+     *
+     * @param beam The beam to prune with, or null.
+     * @return This Alternation object.
+     */
+    public Alternation<Assembly> setBeam(Beam beam) {
+        checkNotFrozen();
+        this.beam = beam;
+        return this;
+    }
+
+    /**
+     * Sets an interner to collapse the duplicate assemblies this
+     * Alternation object returns; null returns them all.
+     *
+     * @param interner The interner to collapse duplicates with, or null.
+     * @return This Alternation object.
+     */
+    public Alternation<Assembly> setInterner(AssemblyInterner interner) {
+        checkNotFrozen();
+        this.interner = interner;
+        return this;
+    }
+
+    /**
+     * Returns the assemblies of a result that survive this Alternation
+     * object's interner and beam, or the result itself if it has
+     * neither.
+     *
+     * @param out The assemblies the sub-parsers returned.
+     * @return The assemblies to return.
+     */
+    protected ArrayList<Assembly> prune(ArrayList<Assembly> out) {
+        if (interner != null) {
+            out = interner.unique(out);
+        }
+        return beam == null ? out : beam.prune(out);
+    }
+
+    /**
+     * Returns the indexes of the sub-parsers that can begin a match of
+     * the given assembly, in increasing order, or null if any of them
+     * can. A compiled grammar tries only these sub-parsers.
+     *
+     * @param a An assembly about to be matched.
+     * @return The sub-parsers that can match the assembly, or null.
+     */
+    protected int[] candidates(Assembly a) {
+        return null;
     }
 
     /**
@@ -16,29 +16,40 @@ import java.util.*;
 public abstract class Assembly<T>
 	implements Enumeration<T>, PubliclyCloneable {
 	
-	protected Stack<T> stack = new Stack<T>();
+	protected ConsStack<T> stack = ConsStack.empty();
 	protected PubliclyCloneable<T> target;
 	protected int index = 0;
+
+	/*
+	 * true while the target may be shared with a copy of this assembly
+	 */
+	protected boolean targetShared = false;
 	
 	/**
 	 * Return a copy of this object.
 	 * <p>
-	 * This implementation creates a shallow copy of this object.
-	 * Subclasses may need to override this method for deep copying.
+	 * The copy shares this assembly's stack, which is immutable, and
+	 * its target, which is copied by whichever assembly next asks for
+	 * it. Copying an assembly therefore takes constant time, however
+	 * deep its stack.
 	 * @return a copy of this object
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public Object clone() {
-		try(
+		try {
 			Assembly<T> a = (Assembly<T>) super.clone();
-			a.stack = (Stack<T>) stack.clone();
+			if (ParserStats.ENABLED) {
+				ParserStats.countClone();
+			}
 			if (target != null) {
-				a.target = (PubliclyCloneable<T>) target.clone();
+				targetShared = true;
+				a.targetShared = true;
 			}
 			return a;
 		} catch (CloneNotSupportedException e) {
 			// this shouldn't happen, since we are Cloneable
-			throw new InternalError(
+			throw new InternalError();
 		}
 	}
 	
@@ -64,6 +75,47 @@ public abstract class Assembly<T>
 	 */
 	public abstract String defaultDelimiter();
 	
+	/**
+	 * Returns a hash of this assembly's state: its index, the
+	 * contents of its stack, and its target. Assemblies that are in
+	 * the same state, as <code>sameState()</code> decides, have the
+	 * same hash.
+	 * <p>
+	 * A stack keeps its hash as it grows, so this costs little more
+	 * than the target's <code>hashCode()</code>.
+	 * @return   a hash of this assembly's state
+	 */
+	public int stateHash() {
+		return (index * 31 + stack.hashCode()) * 31 + Objects.hashCode(target);
+	}
+	
+	/**
+	 * Returns true if the given assembly, of the same input, is in
+	 * the same state as this one: it has consumed as many elements,
+	 * its stack holds equal elements, and its target is equal. Two
+	 * such assemblies can only go on to the same results.
+	 * @param   a   an assembly of the same input
+	 * @return   true, if the assembly is in the same state
+	 */
+	public boolean sameState(Assembly<?> a) {
+		return index == a.index && stack.equals(a.stack)
+				&& (target == a.target || Objects.equals(target, a.target));
+	}
+	
+	/**
+	 * Returns the input this assembly reads its elements from, such
+	 * as a token string. Copies of an assembly share it, and
+	 * assemblies of different inputs do not, so a table of results,
+	 * such as a <code>MemoTable</code>, can tell inputs apart by it.
+	 * <p>
+	 * This implementation returns the assembly itself, which no copy
+	 * shares; subclasses should return their input.
+	 * @return   the input this assembly reads from
+	 */
+	public Object source() {
+		return this;
+	}
+	
 	/**
 	 * Returns the number of elements that have been consumed.
 	 * @return   the number of elements that have been consumed
@@ -82,27 +134,61 @@ public abstract class Assembly<T>
 	}
 	
 	/**
-	 * Removes this assembly's stack.
+	 * Returns a copy of this assembly's stack.
 	 * <p>
-	 * This implementation returns the stack directly.
-	 * Subclasses may override this method for custom behavior.
-	 * @return   this assembly's stack
+	 * The stack is shared between copies of this assembly, so
+	 * changes to the returned stack do not affect the assembly. Use
+	 * <code>push()</code> and <code>pop()</code> to change it.
+	 * @return   a copy of this assembly's stack, bottom first
 	 */
 	public Stack<T> getStack(){
-		return stack;
+		return stack.toStack();
 	}
 	
 	/**
 	 * Returns the object identified as this assembly's "target". 
 	 * <p>
-	 * This implementation returns the target directly.
-	 * Subclasses may override this method for custom behavior.
+	 * If the target is shared with a copy of this assembly, this
+	 * assembly first takes its own copy of the target, so the caller
+	 * may change the object returned.
 	 * @return   the target of this assembly
 	 */
+	@SuppressWarnings("unchecked")
 	public PubliclyCloneable<T> getTarget(){
+		if (targetShared) {
+			target = (PubliclyCloneable<T>) target.clone();
+			targetShared = false;
+		}
 		return target;
 	}
 	
+	/**
+	 * Removes the object at the top of this assembly's stack and
+	 * returns it.
+	 * @return   the object at the top of this assembly's stack
+	 */
+	public T pop(){
+		T top = stack.peek();
+		stack = stack.pop();
+		return top;
+	}
+	
+	/**
+	 * Pushes an object onto the top of this assembly's stack.
+	 * @param   o   the object to push
+	 */
+	public void push(T o){
+		stack = stack.push(o);
+	}
+	
+	/**
+	 * Returns true if this assembly's stack is empty.
+	 * @return   true, if this assembly's stack is empty
+	 */
+	public boolean stackIsEmpty(){
+		return stack.isEmpty();
+	}
+	
 	/**
 	 * Returns true if this assembly has unconsumed elements.
 	 * @return   true, if this assembly has unconsumed elements
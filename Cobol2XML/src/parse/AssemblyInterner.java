@@ -0,0 +1,142 @@
+/*
+ * @(#)AssemblyInterner.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An AssemblyInterner collapses assemblies that are in the same state.
+ * <p>
+ * Different branches of an alternation often arrive at the same
+ * place: the same index, equal stacks and equal targets. Left alone,
+ * each such duplicate goes on through every later step of a
+ * sequence, and the duplicates multiply. An alternation or repetition
+ * with an interner keeps only the first assembly in each state, found
+ * by <code>Assembly.stateHash()</code> and
+ * <code>Assembly.sameState()</code>, as it returns its results. Since
+ * the assemblies dropped could only have led where the one kept
+ * leads, this never changes what a parse finds.
+ * <p>
+ * <code>applyTo()</code> sets an interner on every alternation and
+ * repetition of an existing grammar. One interner may be shared by
+ * many parsers, and many threads; it keeps nothing between calls but
+ * its count.
+ */
+public class AssemblyInterner {
+
+    protected final LongAdder duplicates = new LongAdder();
+
+    /**
+     * Sets this interner on every alternation and repetition of a
+     * grammar.
+     *
+     * @param root the start parser of the grammar
+     * @return the start parser
+     * @throws IllegalStateException if the grammar is frozen
+     */
+    public Parser applyTo(Parser root) {
+        GrammarWalker w = new GrammarWalker() {
+            protected void visitParser(Parser p) {
+                if (p instanceof Alternation) {
+                    ((Alternation) p).setInterner(AssemblyInterner.this);
+                } else if (p instanceof Repetition) {
+                    ((Repetition) p).setInterner(AssemblyInterner.this);
+                }
+            }
+        };
+        w.walk(root);
+        return root;
+    }
+
+    /**
+     * Returns the first assembly of the given collection in each
+     * state, in the order they were given. The collection itself is
+     * returned if it holds no duplicates.
+     *
+     * @param in a collection of assemblies
+     * @return the assemblies in distinct states
+     */
+    public ArrayList<Assembly> unique(ArrayList<Assembly> in) {
+        int n = in.size();
+        if (n < 2) {
+            return in;
+        }
+        ArrayList<Assembly> out = in;
+        HashSet<State> seen = new HashSet<State>();
+        for (int i = 0; i < n; i++) {
+            Assembly a = in.get(i);
+            boolean fresh = seen.add(new State(a));
+            if (!fresh && out == in) {
+                out = new ArrayList<Assembly>(in.subList(0, i));
+            } else if (fresh && out != in) {
+                out.add(a);
+            }
+        }
+        duplicates.add(n - out.size());
+        return out;
+    }
+
+    /**
+     * Returns the number of assemblies this interner has dropped as
+     * duplicates of others.
+     *
+     * @return the number of duplicate assemblies dropped
+     */
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     * Returns a textual description of this interner's count.
+     *
+     * @return a textual description of this interner's count
+     */
+    @Override
+    public String toString() {
+        return "AssemblyInterner[duplicates=" + duplicates() + "]";
+    }
+
+    /*
+     * An assembly, compared by its state.
+     */
+    static final class State {
+        final Assembly a;
+        final int hash;
+
+        State(Assembly a) {
+            this.a = a;
+            this.hash = a.stateHash();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof State && hash == ((State) o).hash && a.sameState(((State) o).a);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * @(#)Beam.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Beam bounds the number of assemblies an alternation or a
+ * repetition keeps alive.
+ * <p>
+ * Left alone, an <code>Alternation</code> returns every assembly any
+ * of its branches made, and a <code>Repetition</code> every
+ * intermediate state, and <code>best()</code> only chooses among them
+ * at the very end; on a long or very ambiguous input the set of live
+ * assemblies can grow without bound. A parser with a beam prunes its
+ * results as it goes. First, assemblies in the same state as an
+ * earlier one are dropped, by an <code>AssemblyInterner</code>: they
+ * could only lead where the earlier one leads. Then, if more
+ * than <i>width</i> assemblies remain, only the best <i>width</i> of
+ * them by the beam's policy are kept, in their original order. The
+ * default policy keeps the assemblies that have consumed the most
+ * elements.
+ * <p>
+ * Dropping duplicates never changes what a parse finds. Cutting the
+ * beam may, since an assembly that is behind now might have gone
+ * further later. <code>overflows()</code> counts the times the beam
+ * was cut at all, not the times a cut changed a result: a beam whose
+ * count stays at zero has changed nothing, but one that has
+ * overflowed may or may not have. One beam may be shared by many
+ * parsers, and many threads.
+ * <p>
+ * <code>applyTo()</code> sets a beam on every alternation and
+ * repetition of an existing grammar.
+ */
+public class Beam {
+
+    /**
+     * The policy that prefers the assemblies that have consumed the
+     * most elements.
+     */
+    public static final Comparator<Assembly> LONGEST = new Comparator<Assembly>() {
+        public int compare(Assembly a, Assembly b) {
+            return Integer.compare(b.elementsConsumed(), a.elementsConsumed());
+        }
+    };
+
+    protected final int width;
+    protected final Comparator<Assembly> policy;
+    protected final AssemblyInterner interner = new AssemblyInterner();
+    protected final LongAdder pruned = new LongAdder();
+    protected final LongAdder overflows = new LongAdder();
+
+    /**
+     * Constructs a beam of the given width that keeps the assemblies
+     * that have consumed the most elements.
+     *
+     * @param width the most assemblies to keep
+     */
+    public Beam(int width) {
+        this(width, LONGEST);
+    }
+
+    /**
+     * Constructs a beam of the given width that keeps the assemblies
+     * the given policy ranks first.
+     *
+     * @param width the most assemblies to keep
+     * @param policy an ordering of assemblies, best first
+     */
+    public Beam(int width, Comparator<Assembly> policy) {
+        if (width < 1) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+        this.width = width;
+        this.policy = policy;
+    }
+
+    /**
+     * Sets this beam on every alternation and repetition of a grammar.
+     *
+     * @param root the start parser of the grammar
+     * @return the start parser
+     * @throws IllegalStateException if the grammar is frozen
+     */
+    public Parser applyTo(Parser root) {
+        GrammarWalker w = new GrammarWalker() {
+            protected void visitParser(Parser p) {
+                if (p instanceof Alternation) {
+                    ((Alternation) p).setBeam(Beam.this);
+                } else if (p instanceof Repetition) {
+                    ((Repetition) p).setBeam(Beam.this);
+                }
+            }
+        };
+        w.walk(root);
+        return root;
+    }
+
+    /**
+     * Returns the assemblies of the given collection that survive this
+     * beam, in the order they were given. The collection itself is
+     * returned if nothing is pruned.
+     *
+     * @param in a collection of assemblies
+     * @return the assemblies that survive
+     */
+    public ArrayList<Assembly> prune(ArrayList<Assembly> in) {
+        ArrayList<Assembly> unique = interner.unique(in);
+        if (unique.size() <= width) {
+            return unique;
+        }
+        return cut(unique);
+    }
+
+    /*
+     * Keep the best width assemblies, in their original order.
+     */
+    protected ArrayList<Assembly> cut(ArrayList<Assembly> in) {
+        List<Assembly> ranked = new ArrayList<Assembly>(in);
+        Collections.sort(ranked, policy);
+        Set<Assembly> keep = Collections.newSetFromMap(new IdentityHashMap<Assembly, Boolean>());
+        keep.addAll(ranked.subList(0, width));
+        ArrayList<Assembly> out = new ArrayList<Assembly>(width);
+        for (Assembly a : in) {
+            if (keep.contains(a)) {
+                out.add(a);
+            }
+        }
+        pruned.add(in.size() - width);
+        overflows.increment();
+        return out;
+    }
+
+    /**
+     * Returns the number of assemblies this beam dropped as duplicates
+     * of others.
+     *
+     * @return the number of duplicate assemblies dropped
+     */
+    public long duplicates() {
+        return interner.duplicates();
+    }
+
+    /**
+     * Returns the number of distinct assemblies this beam dropped to
+     * stay within its width.
+     *
+     * @return the number of assemblies cut from the beam
+     */
+    public long pruned() {
+        return pruned.sum();
+    }
+
+    /**
+     * Returns the number of times more distinct assemblies reached
+     * this beam than it keeps, so that it dropped some. This bounds,
+     * but does not count, the times the beam changed a parse's result.
+     *
+     * @return the number of times the beam overflowed
+     */
+    public long overflows() {
+        return overflows.sum();
+    }
+
+    /**
+     * Returns the most assemblies this beam keeps.
+     *
+     * @return this beam's width
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns a textual description of this beam and its counts.
+     *
+     * @return a textual description of this beam
+     */
+    @Override
+    public String toString() {
+        return "Beam[width=" + width + ", duplicates=" + duplicates() + ", pruned=" + pruned()
+                + ", overflows=" + overflows() + "]";
+    }
+}
@@ -112,8 +112,10 @@ public abstract class CollectionParser extends Parser {
      *
      * @param e the parser to add
      * @return this
+     * @throws IllegalStateException if this parser is frozen
      */
     public CollectionParser add(Parser e) {
+        checkNotFrozen();
         if (e != null) {
             subparsers.add(e);
         }
@@ -121,12 +123,13 @@ public abstract class CollectionParser extends Parser {
     }
 
     /**
-     * Returns this parser's subparsers.
+     * Returns this parser's subparsers. Once this parser is frozen,
+     * this is a copy, so the grammar cannot be changed through it.
      *
      * @return the subparsers
      */
     public ArrayList<Parser> getSubparsers() {
-        return subparsers;
+        return frozen ? new ArrayList<Parser>(subparsers) : subparsers;
     }
 
     /**
@@ -0,0 +1,418 @@
+/*
+ * @(#)CompiledParser.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A CompiledParser matches with a grammar that a
+ * <code>GrammarCompiler</code> has compiled into a table of
+ * instructions.
+ * <p>
+ * The instructions work, as the combinators do, on a whole set of
+ * assemblies at a time, so a compiled parser returns the same
+ * assemblies in the same order as the grammar it was compiled from.
+ * But where the combinators allocate a new collection at every step
+ * and find their way through the grammar by virtual calls, a compiled
+ * parser runs one loop over an array of instructions, keeping its
+ * procedure calls on stacks of its own and reusing the collections it
+ * works with from one step, and one match, to the next. What it
+ * allocates in the steady state is the assemblies themselves.
+ * <p>
+ * The instructions, each an opcode followed by its operands, are:
+ * <pre>
+ *     HALT                  the match is done
+ *     CALL addr             call the procedure at addr
+ *     RETURN                return from a procedure
+ *     TERMINAL t            match the terminal t
+ *     EMPTY                 copy each assembly, as Empty does
+ *     ASSEMBLE p            apply p's assembler to each assembly
+ *     JUMP_IF_EMPTY addr    jump if no assembly is left
+ *     INTERPRET p           match and assemble with p itself
+ *     ALT a                 begin the alternation a
+ *     TRY i addr            take the assemblies alternative i can
+ *                           begin with, or jump if there are none
+ *     COLLECT               add the assemblies to the alternation's
+ *     END_ALT a             end the alternation a
+ *     REPEAT r              begin the repetition r
+ *     LOOP addr             jump if no assembly is left
+ *     NEXT r addr           add the assemblies to the repetition's,
+ *                           and jump back
+ *     END_REPEAT r          end the repetition r
+ * </pre>
+ * The program and its constants never change, so one compiled
+ * parser may be used by many threads at once; each thread gets a
+ * driver of its own.
+ */
+public class CompiledParser extends Parser {
+
+    static final int HALT = 0;
+    static final int CALL = 1;
+    static final int RETURN = 2;
+    static final int TERMINAL = 3;
+    static final int EMPTY = 4;
+    static final int ASSEMBLE = 5;
+    static final int JUMP_IF_EMPTY = 6;
+    static final int INTERPRET = 7;
+    static final int ALT = 8;
+    static final int TRY = 9;
+    static final int COLLECT = 10;
+    static final int END_ALT = 11;
+    static final int REPEAT = 12;
+    static final int LOOP = 13;
+    static final int NEXT = 14;
+    static final int END_REPEAT = 15;
+
+    protected final Parser grammar;
+    protected final int[] code;
+    protected final Parser[] constants;
+    protected final int interpretedCount;
+
+    /*
+     * A driver for each thread; a match that re-enters this parser,
+     * through a parser it interprets, gets a fresh one
+     */
+    private final ThreadLocal<Driver> drivers = new ThreadLocal<Driver>() {
+        @Override
+        protected Driver initialValue() {
+            return new Driver();
+        }
+    };
+
+    /*
+     * Constructs a parser that executes the given program. Use
+     * GrammarCompiler.compile() to make one.
+     */
+    CompiledParser(Parser grammar, int[] code, Parser[] constants, int interpretedCount) {
+        super(grammar.getName());
+        this.grammar = grammar;
+        this.code = code;
+        this.constants = constants;
+        this.interpretedCount = interpretedCount;
+        this.frozen = true;
+    }
+
+    /**
+     * Passes a visitor on to the grammar this parser was compiled
+     * from.
+     *
+     * @param pv the visitor to accept
+     * @param visited a collection of previously visited parsers
+     */
+    public void accept(ParserVisitor pv, ArrayList<Assembly> visited) {
+        grammar.accept(pv, visited);
+    }
+
+    /**
+     * Returns the grammar this parser was compiled from.
+     *
+     * @return the grammar this parser was compiled from
+     */
+    public Parser getGrammar() {
+        return grammar;
+    }
+
+    /**
+     * Returns the number of parsers in the grammar that could not be
+     * compiled, and that this parser calls in the ordinary way.
+     *
+     * @return the number of parsers this parser interprets
+     */
+    public int interpretedCount() {
+        return interpretedCount;
+    }
+
+    /**
+     * Returns the number of words in this parser's program.
+     *
+     * @return the length of this parser's program
+     */
+    public int programSize() {
+        return code.length;
+    }
+
+    /**
+     * Matches the compiled grammar against a collection of assemblies.
+     *
+     * @param in a collection of assemblies to match against
+     * @return the assemblies that result from the matches
+     */
+    public ArrayList<Assembly> match(ArrayList<Assembly> in) {
+        Driver d = drivers.get();
+        if (d.running) {
+            d = new Driver();
+        }
+        return d.run(in);
+    }
+
+    /**
+     * Returns a random expansion of the grammar.
+     */
+    protected ArrayList<?> randomExpansion(int maxDepth, int depth) {
+        return grammar.randomExpansion(maxDepth, depth);
+    }
+
+    /**
+     * Returns a textual description of the grammar.
+     */
+    protected String unvisitedString(ArrayList<Parser> visited) {
+        return grammar.unvisitedString(visited);
+    }
+
+    /*
+     * The state of one match: the return stack, the alternations and
+     * repetitions under way, and the collections kept for reuse.
+     */
+    private final class Driver {
+        boolean running;
+        int[] returns = new int[16];
+        int sp;
+
+        @SuppressWarnings("unchecked")
+        ArrayList<Assembly>[] ins = new ArrayList[8];
+        @SuppressWarnings("unchecked")
+        ArrayList<Assembly>[] outs = new ArrayList[8];
+        int[][][] candidates = new int[8][][];
+        int[][] next = new int[8][];
+        int depth;
+
+        final ArrayDeque<ArrayList<Assembly>> free = new ArrayDeque<ArrayList<Assembly>>();
+
+        ArrayList<Assembly> run(ArrayList<Assembly> in) {
+            running = true;
+            try {
+                ArrayList<Assembly> cur = list();
+                cur.addAll(in);
+                return execute(cur);
+            } finally {
+                for (int d = 0; d < depth; d++) {
+                    ins[d] = null;
+                    outs[d] = null;
+                }
+                sp = 0;
+                depth = 0;
+                running = false;
+            }
+        }
+
+        ArrayList<Assembly> execute(ArrayList<Assembly> cur) {
+            int pc = 0;
+            while (true) {
+                switch (code[pc]) {
+                case HALT: {
+                    ArrayList<Assembly> out = new ArrayList<Assembly>(cur);
+                    recycle(cur);
+                    return out;
+                }
+                case CALL:
+                    if (sp == returns.length) {
+                        returns = Arrays.copyOf(returns, sp * 2);
+                    }
+                    returns[sp++] = pc + 2;
+                    pc = code[pc + 1];
+                    break;
+                case RETURN:
+                    pc = returns[--sp];
+                    break;
+                case TERMINAL: {
+                    Terminal t = (Terminal) constants[code[pc + 1]];
+                    ArrayList<Assembly> out = list();
+                    for (int i = 0, n = cur.size(); i < n; i++) {
+                        Assembly b = t.matchOneAssembly(cur.get(i));
+                        if (b != null) {
+                            out.add(b);
+                        }
+                    }
+                    recycle(cur);
+                    cur = out;
+                    pc += 2;
+                    break;
+                }
+                case EMPTY: {
+                    ArrayList<Assembly> out = list();
+                    for (int i = 0, n = cur.size(); i < n; i++) {
+                        out.add((Assembly) cur.get(i).clone());
+                    }
+                    recycle(cur);
+                    cur = out;
+                    pc += 1;
+                    break;
+                }
+                case ASSEMBLE: {
+                    Assembler a = constants[code[pc + 1]].assembler;
+                    for (int i = 0, n = cur.size(); i < n; i++) {
+                        a.workOn(cur.get(i));
+                    }
+                    pc += 2;
+                    break;
+                }
+                case JUMP_IF_EMPTY:
+                    pc = cur.isEmpty() ? code[pc + 1] : pc + 2;
+                    break;
+                case INTERPRET: {
+                    ArrayList<Assembly> out = list();
+                    out.addAll(constants[code[pc + 1]].matchAndAssemble(cur));
+                    recycle(cur);
+                    cur = out;
+                    pc += 2;
+                    break;
+                }
+                case ALT: {
+                    Alternation a = (Alternation) constants[code[pc + 1]];
+                    int d = push();
+                    int n = cur.size();
+                    if (candidates[d] == null || candidates[d].length < n) {
+                        candidates[d] = new int[Math.max(n, 4)][];
+                        next[d] = new int[candidates[d].length];
+                    }
+                    for (int j = 0; j < n; j++) {
+                        candidates[d][j] = a.candidates(cur.get(j));
+                        next[d][j] = 0;
+                    }
+                    ins[d] = cur;
+                    outs[d] = list();
+                    cur = null;
+                    pc += 2;
+                    break;
+                }
+                case TRY: {
+                    int i = code[pc + 1];
+                    int d = depth - 1;
+                    ArrayList<Assembly> from = ins[d];
+                    int[][] c = candidates[d];
+                    int[] nx = next[d];
+                    ArrayList<Assembly> these = list();
+                    for (int j = 0, n = from.size(); j < n; j++) {
+                        int[] cj = c[j];
+                        if (cj == null) {
+                            these.add(from.get(j));
+                        } else if (nx[j] < cj.length && cj[nx[j]] == i) {
+                            nx[j]++;
+                            these.add(from.get(j));
+                        }
+                    }
+                    if (these.isEmpty()) {
+                        recycle(these);
+                        pc = code[pc + 2];
+                    } else {
+                        cur = these;
+                        pc += 3;
+                    }
+                    break;
+                }
+                case COLLECT:
+                    outs[depth - 1].addAll(cur);
+                    recycle(cur);
+                    cur = null;
+                    pc += 1;
+                    break;
+                case END_ALT: {
+                    int d = --depth;
+                    recycle(ins[d]);
+                    ins[d] = null;
+                    cur = prune(((Alternation) constants[code[pc + 1]]).prune(outs[d]), outs[d]);
+                    outs[d] = null;
+                    pc += 2;
+                    break;
+                }
+                case REPEAT: {
+                    Repetition r = (Repetition) constants[code[pc + 1]];
+                    if (r.preAssembler != null) {
+                        for (int i = 0, n = cur.size(); i < n; i++) {
+                            r.preAssembler.workOn(cur.get(i));
+                        }
+                    }
+                    int d = push();
+                    ArrayList<Assembly> out = list();
+                    for (int i = 0, n = cur.size(); i < n; i++) {
+                        out.add((Assembly) cur.get(i).clone());
+                    }
+                    outs[d] = out;
+                    pc += 2;
+                    break;
+                }
+                case LOOP:
+                    if (cur.isEmpty()) {
+                        recycle(cur);
+                        cur = null;
+                        pc = code[pc + 1];
+                    } else {
+                        pc += 2;
+                    }
+                    break;
+                case NEXT: {
+                    cur = prune(((Repetition) constants[code[pc + 1]]).prune(cur), cur);
+                    outs[depth - 1].addAll(cur);
+                    pc = code[pc + 2];
+                    break;
+                }
+                case END_REPEAT: {
+                    int d = --depth;
+                    cur = prune(((Repetition) constants[code[pc + 1]]).prune(outs[d]), outs[d]);
+                    outs[d] = null;
+                    pc += 2;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Bad instruction " + code[pc] + " at " + pc);
+                }
+            }
+        }
+
+        /*
+         * Return the depth of a new alternation or repetition.
+         */
+        int push() {
+            if (depth == ins.length) {
+                int n = depth * 2;
+                ins = Arrays.copyOf(ins, n);
+                outs = Arrays.copyOf(outs, n);
+                candidates = Arrays.copyOf(candidates, n);
+                next = Arrays.copyOf(next, n);
+            }
+            return depth++;
+        }
+
+        /*
+         * Return what pruning left of a collection, recycling the
+         * collection if pruning replaced it.
+         */
+        ArrayList<Assembly> prune(ArrayList<Assembly> pruned, ArrayList<Assembly> v) {
+            if (pruned != v) {
+                recycle(v);
+            }
+            return pruned;
+        }
+
+        ArrayList<Assembly> list() {
+            ArrayList<Assembly> v = free.poll();
+            return v == null ? new ArrayList<Assembly>() : v;
+        }
+
+        void recycle(ArrayList<Assembly> v) {
+            v.clear();
+            free.push(v);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * @(#)ConsStack.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.EmptyStackException;
+import java.util.Objects;
+import java.util.Stack;
+
+/**
+ * A ConsStack is an immutable stack built from linked cells.
+ * <p>
+ * Pushing returns a new stack whose tail is the old one, and popping
+ * returns the tail, so stacks that grow from a common base share it.
+ * This lets an assembly be copied without copying its stack: two
+ * copies simply refer to the same cells until one of them pushes or
+ * pops.
+ *
+ * @param <T> the type of element on the stack
+ */
+public final class ConsStack<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final ConsStack EMPTY = new ConsStack();
+
+    private final T head;
+    private final ConsStack<T> tail;
+    private final int size;
+
+    /*
+     * The hash of this stack, or 0 until it is first asked for. Like
+     * String's, it may be computed by more than one thread at once,
+     * harmlessly, since each computes the same value.
+     */
+    private int hash;
+
+    /*
+     * Construct the empty stack.
+     */
+    private ConsStack() {
+        this.head = null;
+        this.tail = null;
+        this.size = 0;
+        this.hash = 1;
+    }
+
+    /*
+     * Construct a stack with the given top element above the given
+     * stack.
+     */
+    private ConsStack(T head, ConsStack<T> tail) {
+        this.head = head;
+        this.tail = tail;
+        this.size = tail.size + 1;
+    }
+
+    /**
+     * Returns the empty stack.
+     *
+     * @return the empty stack
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ConsStack<T> empty() {
+        return (ConsStack<T>) EMPTY;
+    }
+
+    /**
+     * Returns true if the given object is a stack with equal elements
+     * in the same order.
+     *
+     * @param o the object to compare with
+     * @return true, if the stacks have equal elements
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ConsStack)) {
+            return false;
+        }
+        ConsStack<?> s1 = this;
+        ConsStack<?> s2 = (ConsStack<?>) o;
+        if (s1.size != s2.size || s1.hashCode() != s2.hashCode()) {
+            return false;
+        }
+        while (s1 != s2) {
+            if (!Objects.equals(s1.head, s2.head)) {
+                return false;
+            }
+            s1 = s1.tail;
+            s2 = s2.tail;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code computed from the elements of this stack. The
+     * hash of each cell is computed the first time it is asked for,
+     * from the top of the stack down to the first cell that already
+     * knows its hash, and kept.
+     *
+     * @return a hash code for this stack
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h != 0) {
+            return h;
+        }
+        int n = 0;
+        ConsStack<T> s = this;
+        while (s.hash == 0) {
+            n++;
+            s = s.tail;
+        }
+        @SuppressWarnings("unchecked")
+        ConsStack<T>[] cells = new ConsStack[n];
+        s = this;
+        for (int i = 0; i < n; i++) {
+            cells[i] = s;
+            s = s.tail;
+        }
+        h = s.hash;
+        for (int i = n - 1; i >= 0; i--) {
+            h = 31 * h + Objects.hashCode(cells[i].head);
+            if (h == 0) {
+                // keep 0 to mean "not yet computed"
+                h = 1;
+            }
+            cells[i].hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Returns true if this stack has no elements.
+     *
+     * @return true, if this stack has no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the top element of this stack.
+     *
+     * @return the top element of this stack
+     * @throws EmptyStackException if this stack is empty
+     */
+    public T peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return head;
+    }
+
+    /**
+     * Returns the stack below the top element of this stack.
+     *
+     * @return this stack without its top element
+     * @throws EmptyStackException if this stack is empty
+     */
+    public ConsStack<T> pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return tail;
+    }
+
+    /**
+     * Returns a stack with the given element on top of this one.
+     *
+     * @param o the element to push
+     * @return a stack with the given element on top of this one
+     */
+    public ConsStack<T> push(T o) {
+        return new ConsStack<T>(o, this);
+    }
+
+    /**
+     * Returns the number of elements on this stack.
+     *
+     * @return the number of elements on this stack
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a <code>java.util.Stack</code> with the elements of this
+     * stack, bottom first.
+     *
+     * @return a mutable copy of this stack
+     */
+    @SuppressWarnings("unchecked")
+    public Stack<T> toStack() {
+        Object[] elements = new Object[size];
+        ConsStack<T> s = this;
+        for (int i = size - 1; i >= 0; i--) {
+            elements[i] = s.head;
+            s = s.tail;
+        }
+        Stack<T> stack = new Stack<T>();
+        for (Object o : elements) {
+            stack.push((T) o);
+        }
+        return stack;
+    }
+
+    /**
+     * Returns a textual description of this stack, bottom first, in the
+     * form <code>java.util.Stack</code> uses.
+     *
+     * @return a textual description of this stack
+     */
+    @Override
+    public String toString() {
+        return toStack().toString();
+    }
+}
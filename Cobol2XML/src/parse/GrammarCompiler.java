@@ -0,0 +1,270 @@
+/*
+ * @(#)GrammarCompiler.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A GrammarCompiler turns a grammar of combinators into a flat table
+ * of instructions that a <code>CompiledParser</code> executes in a
+ * single loop, with no virtual <code>match()</code> call per parser
+ * and no new collection per step.
+ * <p>
+ * Each sequence, alternation and repetition becomes a procedure,
+ * compiled once however often the grammar refers to it, so shared
+ * and recursive productions compile as well as any other. Terminals
+ * and empty parsers are compiled inline where they are used. A
+ * parser's assembler is called at the point its procedure returns,
+ * just as <code>matchAndAssemble()</code> would call it.
+ * <p>
+ * A parser whose class changes what <code>match()</code> or
+ * <code>matchAndAssemble()</code> does, such as a
+ * <code>MemoParser</code> or an <code>InstrumentedParser</code>, is
+ * not compiled; the compiled parser calls it in the ordinary way.
+ * Classes whose <code>match()</code> is known to return what their
+ * base class's would may say so with <code>trust()</code>.
+ * <p>
+ * The compiled parser returns the same assemblies, in the same order,
+ * as the grammar it was compiled from.
+ */
+public class GrammarCompiler extends ParserVisitor {
+
+    /*
+     * The classes whose match() the compiled instructions reproduce
+     */
+    private static final Set<Class<?>> TRUSTED = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+    static {
+        trust(Sequence.class);
+        trust(Alternation.class);
+        trust(Repetition.class);
+        trust(Empty.class);
+        trust(Terminal.class);
+    }
+
+    protected int[] code = new int[64];
+    protected int size;
+    protected ArrayList<Parser> constants = new ArrayList<Parser>();
+    protected IdentityHashMap<Parser, Integer> constantIndex = new IdentityHashMap<Parser, Integer>();
+    protected IdentityHashMap<Parser, Integer> entries = new IdentityHashMap<Parser, Integer>();
+    protected ArrayDeque<Parser> pending = new ArrayDeque<Parser>();
+    protected IdentityHashMap<Parser, Boolean> interpreted = new IdentityHashMap<Parser, Boolean>();
+
+    /*
+     * The CALL operands still to be filled in, and the parsers they
+     * call
+     */
+    protected ArrayList<Integer> fixups = new ArrayList<Integer>();
+    protected ArrayList<Parser> callees = new ArrayList<Parser>();
+
+    /**
+     * Compiles the grammar that starts with the given parser, freezing
+     * it first so that it cannot change under the compiled form.
+     *
+     * @param root the start parser of the grammar
+     * @return a parser that executes the compiled grammar
+     */
+    public static CompiledParser compile(Parser root) {
+        return new GrammarCompiler().compileGrammar(root);
+    }
+
+    /**
+     * Declares that the <code>match()</code> method of the given class
+     * returns what its base sequence, alternation, repetition, empty
+     * parser or terminal would, given the hooks a compiled parser
+     * calls, so that parsers of the class may be compiled.
+     *
+     * @param c a parser class
+     */
+    public static void trust(Class<? extends Parser> c) {
+        TRUSTED.add(c);
+    }
+
+    /**
+     * Compiles the grammar that starts with the given parser.
+     *
+     * @param root the start parser of the grammar
+     * @return a parser that executes the compiled grammar
+     */
+    public CompiledParser compileGrammar(Parser root) {
+        root.freeze();
+        emitReference(root);
+        emit(CompiledParser.HALT);
+        while (!pending.isEmpty()) {
+            Parser p = pending.poll();
+            entries.put(p, size);
+            p.accept(this);
+            emitAssemble(p);
+            emit(CompiledParser.RETURN);
+        }
+        for (int i = 0; i < fixups.size(); i++) {
+            code[fixups.get(i)] = entries.get(callees.get(i));
+        }
+        return new CompiledParser(root, Arrays.copyOf(code, size),
+                constants.toArray(new Parser[constants.size()]), interpreted.size());
+    }
+
+    /**
+     * Returns true if the instructions this compiler emits for the
+     * given parser do what the parser's own <code>match()</code> and
+     * <code>matchAndAssemble()</code> would.
+     *
+     * @param p a parser
+     * @return true, if the parser can be compiled
+     */
+    protected boolean isCompilable(Parser p) {
+        return isTrusted(p);
+    }
+
+    /*
+     * Return true if the parser matches and assembles as its trusted
+     * base class does.
+     */
+    static boolean isTrusted(Parser p) {
+        return declarer(p, "matchAndAssemble") == Parser.class
+                && TRUSTED.contains(declarer(p, "match"));
+    }
+
+    public void visitAlternation(Alternation a, ArrayList<Assembly> visited) {
+        emit(CompiledParser.ALT, constant(a));
+        ArrayList<Parser> subs = a.getSubparsers();
+        for (int i = 0; i < subs.size(); i++) {
+            int tryAt = size;
+            emit(CompiledParser.TRY, i, 0);
+            emitReference(subs.get(i));
+            emit(CompiledParser.COLLECT);
+            code[tryAt + 2] = size;
+        }
+        emit(CompiledParser.END_ALT, constant(a));
+    }
+
+    public void visitEmpty(Empty e, ArrayList<Assembly> visited) {
+        emit(CompiledParser.EMPTY);
+    }
+
+    public void visitRepetition(Repetition r, ArrayList<Assembly> visited) {
+        emit(CompiledParser.REPEAT, constant(r));
+        int top = size;
+        emit(CompiledParser.LOOP, 0);
+        emitReference(r.subparser);
+        emit(CompiledParser.NEXT, constant(r), top);
+        code[top + 1] = size;
+        emit(CompiledParser.END_REPEAT, constant(r));
+    }
+
+    public void visitSequence(Sequence s, ArrayList<Assembly> visited) {
+        ArrayList<Parser> subs = s.getSubparsers();
+        int[] exits = new int[subs.size()];
+        int n = 0;
+        for (int i = 0; i < subs.size(); i++) {
+            emitReference(subs.get(i));
+            if (i < subs.size() - 1) {
+                emit(CompiledParser.JUMP_IF_EMPTY, 0);
+                exits[n++] = size - 1;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            code[exits[i]] = size;
+        }
+    }
+
+    public void visitTerminal(Terminal t, ArrayList<Assembly> visited) {
+        emit(CompiledParser.TERMINAL, constant(t));
+    }
+
+    /*
+     * Return the index of a parser in the constant pool, adding it if
+     * need be.
+     */
+    protected int constant(Parser p) {
+        Integer i = constantIndex.get(p);
+        if (i == null) {
+            i = constants.size();
+            constants.add(p);
+            constantIndex.put(p, i);
+        }
+        return i;
+    }
+
+    /*
+     * Emit a call of a parser's assembler, if it has one.
+     */
+    protected void emitAssemble(Parser p) {
+        if (p.assembler != null) {
+            emit(CompiledParser.ASSEMBLE, constant(p));
+        }
+    }
+
+    /*
+     * Emit what matches and assembles with the given parser where the
+     * grammar refers to it: the parser itself if it is not compiled,
+     * its instructions if it is a terminal or empty, or else a call of
+     * its procedure.
+     */
+    protected void emitReference(Parser p) {
+        if (!isCompilable(p)) {
+            interpreted.put(p, Boolean.TRUE);
+            emit(CompiledParser.INTERPRET, constant(p));
+        } else if (p instanceof Terminal || p instanceof Empty) {
+            p.accept(this);
+            emitAssemble(p);
+        } else {
+            emit(CompiledParser.CALL, 0);
+            fixups.add(size - 1);
+            callees.add(p);
+            if (!entries.containsKey(p)) {
+                entries.put(p, -1);
+                pending.add(p);
+            }
+        }
+    }
+
+    /*
+     * Append an instruction to the code.
+     */
+    protected void emit(int... words) {
+        if (size + words.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+        }
+        for (int w : words) {
+            code[size++] = w;
+        }
+    }
+
+    /*
+     * Return the class that declares the public method of the given
+     * name that a parser matches with.
+     */
+    private static Class<?> declarer(Parser p, String name) {
+        try {
+            return p.getClass().getMethod(name, ArrayList.class).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
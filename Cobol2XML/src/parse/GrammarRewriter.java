@@ -0,0 +1,96 @@
+/*
+ * @(#)GrammarRewriter.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+
+package parse;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * A GrammarRewriter wraps parsers of an existing grammar, replacing
+ * every reference to a parser it wraps, so the grammar gains the
+ * wrappers without being rewritten by hand.
+ * <p>
+ * Subclasses implement <code>wrapperFor()</code>, which returns the
+ * wrapper for a parser, or the parser itself to leave it alone. Each
+ * parser is wrapped at most once, however many parsers refer to it,
+ * so shared and recursive references keep pointing to one parser.
+ */
+public abstract class GrammarRewriter {
+
+    /*
+     * The wrapper made for each parser so far
+     */
+    private final IdentityHashMap<Parser, Parser> wrappers = new IdentityHashMap<Parser, Parser>();
+
+    /**
+     * Returns a new wrapper for the given parser, or the parser itself
+     * if it is not to be wrapped.
+     *
+     * @param p a parser in the grammar
+     * @return the parser's wrapper, or the parser
+     */
+    protected abstract Parser wrapperFor(Parser p);
+
+    /**
+     * Wraps the parsers of the grammar that begins with the given
+     * parser, and returns the grammar's new start parser.
+     *
+     * @param root the start parser of the grammar
+     * @return the start parser, wrapped if it is to be
+     * @throws IllegalStateException if the grammar is frozen; rewrite
+     *         a grammar before freezing it
+     */
+    public Parser rewrite(Parser root) {
+        GrammarWalker w = new GrammarWalker() {
+            protected void visitParser(Parser p) {
+            }
+        };
+        w.walk(root);
+        for (Parser p : w.parsers()) {
+            if (p instanceof CollectionParser) {
+                p.checkNotFrozen();
+                ArrayList<Parser> subs = ((CollectionParser) p).getSubparsers();
+                for (int i = 0; i < subs.size(); i++) {
+                    subs.set(i, wrap(subs.get(i)));
+                }
+            } else if (p instanceof Repetition) {
+                Repetition r = (Repetition) p;
+                r.checkNotFrozen();
+                r.subparser = wrap(r.subparser);
+            }
+        }
+        return wrap(root);
+    }
+
+    /*
+     * Return the one wrapper for a parser, making it the first time.
+     */
+    private Parser wrap(Parser p) {
+        Parser w = wrappers.get(p);
+        if (w == null) {
+            w = wrapperFor(p);
+            wrappers.put(p, w);
+        }
+        return w;
+    }
+}
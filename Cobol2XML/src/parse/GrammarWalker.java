@@ -0,0 +1,106 @@
+/*
+ * @(#)GrammarWalker.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A GrammarWalker is a visitor that reaches every parser in a
+ * grammar exactly once, even where the grammar shares or recursively
+ * refers to a parser.
+ * <p>
+ * Subclasses implement <code>visitParser()</code>, which the walker
+ * calls for each parser before it walks the parser's subparsers.
+ */
+public abstract class GrammarWalker extends ParserVisitor {
+
+    /*
+     * The parsers this walker has reached, in the order reached
+     */
+    private final IdentityHashMap<Parser, Boolean> seen = new IdentityHashMap<Parser, Boolean>();
+    private final List<Parser> order = new ArrayList<Parser>();
+
+    /**
+     * Returns every parser this walker has reached, in the order it
+     * reached them.
+     *
+     * @return the parsers this walker has reached
+     */
+    public List<Parser> parsers() {
+        return order;
+    }
+
+    /**
+     * Called once for each parser in the grammar.
+     *
+     * @param p a parser in the grammar
+     */
+    protected abstract void visitParser(Parser p);
+
+    /**
+     * Visits the given parser and, through it, every parser it refers
+     * to that this walker has not yet reached.
+     *
+     * @param p the parser to start from
+     */
+    public void walk(Parser p) {
+        if (p == null || seen.put(p, Boolean.TRUE) != null) {
+            return;
+        }
+        order.add(p);
+        p.accept(this);
+    }
+
+    /*
+     * Walk each subparser of a collection parser.
+     */
+    private void walkAll(CollectionParser c) {
+        for (Parser p : c.getSubparsers()) {
+            walk(p);
+        }
+    }
+
+    public void visitAlternation(Alternation a, ArrayList<Assembly> visited) {
+        visitParser(a);
+        walkAll(a);
+    }
+
+    public void visitEmpty(Empty e, ArrayList<Assembly> visited) {
+        visitParser(e);
+    }
+
+    public void visitRepetition(Repetition r, ArrayList<Assembly> visited) {
+        visitParser(r);
+        walk(r.getSubparser());
+    }
+
+    public void visitSequence(Sequence s, ArrayList<Assembly> visited) {
+        visitParser(s);
+        walkAll(s);
+    }
+
+    public void visitTerminal(Terminal t, ArrayList<Assembly> visited) {
+        visitParser(t);
+    }
+}
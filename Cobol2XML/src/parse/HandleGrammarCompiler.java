@@ -0,0 +1,297 @@
+/*
+ * @(#)HandleGrammarCompiler.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A HandleGrammarCompiler turns a grammar of combinators into a tree
+ * of method handles, one for each parser, that a
+ * <code>HandleParser</code> invokes.
+ * <p>
+ * Each handle has its parser, its subparsers' handles and its
+ * assembler bound into it as constants. Once the tree is hot the JIT
+ * specializes it as a whole, so a terminal's
+ * <code>qualifies()</code> check is called on a known class and
+ * inlined, and a sequence runs as straight-line code, where the
+ * combinators would make a megamorphic call of <code>match()</code>
+ * at every step.
+ * <p>
+ * The handles do what the combinators' <code>match()</code> methods
+ * do, so a handle parser returns the same assemblies, in the same
+ * order, as the grammar it was compiled from. Parsers that the
+ * <code>GrammarCompiler</code> would not compile are called in the
+ * ordinary way, and a recursive reference goes through a call site
+ * that is bound once its parser's handle is built.
+ * <p>
+ * <code>compile()</code> compiles a grammar once and keeps the result
+ * for the life of the program, as suits grammars such as
+ * <code>CobolParser.sharedGrammar()</code> that are built once. A
+ * grammar that is made and dropped should be compiled with
+ * <code>compileGrammar()</code> instead.
+ */
+public class HandleGrammarCompiler extends ParserVisitor {
+
+    private static final MethodType MATCH = MethodType.methodType(ArrayList.class, ArrayList.class);
+
+    private static final MethodHandle TERMINAL;
+    private static final MethodHandle EMPTY;
+    private static final MethodHandle COPY;
+    private static final MethodHandle IS_EMPTY;
+    private static final MethodHandle ASSEMBLE;
+    private static final MethodHandle NEW_LIST;
+    private static final MethodHandle ALTERNATIVE;
+    private static final MethodHandle PRUNE;
+    private static final MethodHandle REPEAT;
+    private static final MethodHandle MATCH_AND_ASSEMBLE;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> c = HandleGrammarCompiler.class;
+        try {
+            TERMINAL = lookup.findStatic(c, "terminal",
+                    MethodType.methodType(ArrayList.class, Terminal.class, ArrayList.class));
+            EMPTY = lookup.findStatic(c, "empty", MATCH);
+            COPY = lookup.findStatic(c, "copy", MATCH);
+            IS_EMPTY = lookup.findStatic(c, "isEmpty", MethodType.methodType(boolean.class, ArrayList.class));
+            ASSEMBLE = lookup.findStatic(c, "assemble",
+                    MethodType.methodType(ArrayList.class, Assembler.class, ArrayList.class));
+            NEW_LIST = lookup.findStatic(c, "newList", MATCH);
+            ALTERNATIVE = lookup.findStatic(c, "alternative", MethodType.methodType(void.class,
+                    Alternation.class, int.class, MethodHandle.class, ArrayList.class, ArrayList.class));
+            PRUNE = lookup.findStatic(c, "prune",
+                    MethodType.methodType(ArrayList.class, Alternation.class, ArrayList.class));
+            REPEAT = lookup.findStatic(c, "repeat",
+                    MethodType.methodType(ArrayList.class, Repetition.class, MethodHandle.class, ArrayList.class));
+            MATCH_AND_ASSEMBLE = lookup.findVirtual(Parser.class, "matchAndAssemble", MATCH);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /*
+     * The grammars compile() has compiled
+     */
+    private static final Map<Parser, HandleParser> COMPILED = new IdentityHashMap<Parser, HandleParser>();
+
+    protected IdentityHashMap<Parser, MethodHandle> handles = new IdentityHashMap<Parser, MethodHandle>();
+    protected IdentityHashMap<Parser, MutableCallSite> sites = new IdentityHashMap<Parser, MutableCallSite>();
+    protected ArrayList<MutableCallSite> recursive = new ArrayList<MutableCallSite>();
+    protected MethodHandle result;
+
+    /**
+     * Returns a handle parser for the grammar that starts with the
+     * given parser, compiling the grammar the first time it is asked
+     * for.
+     *
+     * @param root the start parser of the grammar
+     * @return a parser that invokes the compiled grammar
+     */
+    public static HandleParser compile(Parser root) {
+        synchronized (COMPILED) {
+            HandleParser h = COMPILED.get(root);
+            if (h == null) {
+                h = new HandleGrammarCompiler().compileGrammar(root);
+                COMPILED.put(root, h);
+            }
+            return h;
+        }
+    }
+
+    /**
+     * Compiles the grammar that starts with the given parser, freezing
+     * it first so that it cannot change under the compiled form.
+     *
+     * @param root the start parser of the grammar
+     * @return a parser that invokes the compiled grammar
+     */
+    public HandleParser compileGrammar(Parser root) {
+        root.freeze();
+        MethodHandle h = handleFor(root);
+        if (!recursive.isEmpty()) {
+            MutableCallSite.syncAll(recursive.toArray(new MutableCallSite[recursive.size()]));
+        }
+        return new HandleParser(root, h);
+    }
+
+    /*
+     * Return the handle that matches and assembles as the given
+     * parser does, building it if need be.
+     */
+    protected MethodHandle handleFor(Parser p) {
+        MethodHandle h = handles.get(p);
+        if (h != null) {
+            return h;
+        }
+        MutableCallSite site = sites.get(p);
+        if (site != null) {
+            recursive.add(site);
+            return site.dynamicInvoker();
+        }
+        if (!GrammarCompiler.isTrusted(p)) {
+            h = MATCH_AND_ASSEMBLE.bindTo(p);
+        } else {
+            site = new MutableCallSite(MATCH);
+            sites.put(p, site);
+            p.accept(this);
+            h = result;
+            if (p.assembler != null) {
+                h = MethodHandles.filterReturnValue(h, ASSEMBLE.bindTo(p.assembler));
+            }
+            site.setTarget(h);
+        }
+        handles.put(p, h);
+        return h;
+    }
+
+    public void visitAlternation(Alternation a, ArrayList<Assembly> visited) {
+        ArrayList<Parser> subs = a.getSubparsers();
+        // (out, in) -> out, having added each alternative's results to out
+        MethodHandle body = MethodHandles.dropArguments(MethodHandles.identity(ArrayList.class), 1, ArrayList.class);
+        for (int i = subs.size() - 1; i >= 0; i--) {
+            MethodHandle step = MethodHandles.insertArguments(ALTERNATIVE, 0, a, i, handleFor(subs.get(i)));
+            body = MethodHandles.foldArguments(body, step);
+        }
+        body = MethodHandles.filterReturnValue(body, PRUNE.bindTo(a));
+        result = MethodHandles.foldArguments(body, NEW_LIST);
+    }
+
+    public void visitEmpty(Empty e, ArrayList<Assembly> visited) {
+        result = EMPTY;
+    }
+
+    public void visitRepetition(Repetition r, ArrayList<Assembly> visited) {
+        result = MethodHandles.insertArguments(REPEAT, 0, r, handleFor(r.subparser));
+    }
+
+    public void visitSequence(Sequence s, ArrayList<Assembly> visited) {
+        ArrayList<Parser> subs = s.getSubparsers();
+        if (subs.isEmpty()) {
+            result = COPY;
+            return;
+        }
+        MethodHandle rest = handleFor(subs.get(subs.size() - 1));
+        for (int i = subs.size() - 2; i >= 0; i--) {
+            MethodHandle unlessEmpty = MethodHandles.guardWithTest(IS_EMPTY, MethodHandles.identity(ArrayList.class), rest);
+            rest = MethodHandles.filterReturnValue(handleFor(subs.get(i)), unlessEmpty);
+        }
+        result = rest;
+    }
+
+    public void visitTerminal(Terminal t, ArrayList<Assembly> visited) {
+        result = TERMINAL.bindTo(t);
+    }
+
+    /*
+     * Match an alternative against the assemblies that can begin with
+     * one of its first tokens, adding its results to out.
+     */
+    @SuppressWarnings("unchecked")
+    private static void alternative(Alternation a, int i, MethodHandle alt,
+            ArrayList<Assembly> out, ArrayList<Assembly> in) throws Throwable {
+        ArrayList<Assembly> these = null;
+        for (int j = 0, n = in.size(); j < n; j++) {
+            int[] c = a.candidates(in.get(j));
+            boolean takes = c == null || Arrays.binarySearch(c, i) >= 0;
+            if (these != null) {
+                if (takes) {
+                    these.add(in.get(j));
+                }
+            } else if (!takes) {
+                these = new ArrayList<Assembly>(in.subList(0, j));
+            }
+        }
+        if (these == null) {
+            these = in;
+        }
+        if (!these.isEmpty()) {
+            out.addAll((ArrayList<Assembly>) alt.invokeExact(these));
+        }
+    }
+
+    private static ArrayList<Assembly> assemble(Assembler a, ArrayList<Assembly> out) {
+        for (int i = 0, n = out.size(); i < n; i++) {
+            a.workOn(out.get(i));
+        }
+        return out;
+    }
+
+    private static ArrayList<Assembly> copy(ArrayList<Assembly> in) {
+        return new ArrayList<Assembly>(in);
+    }
+
+    private static ArrayList<Assembly> empty(ArrayList<Assembly> in) {
+        ArrayList<Assembly> out = new ArrayList<Assembly>(in.size());
+        for (int i = 0, n = in.size(); i < n; i++) {
+            out.add((Assembly) in.get(i).clone());
+        }
+        return out;
+    }
+
+    private static boolean isEmpty(ArrayList<Assembly> v) {
+        return v.isEmpty();
+    }
+
+    private static ArrayList<Assembly> newList(ArrayList<Assembly> in) {
+        return new ArrayList<Assembly>();
+    }
+
+    private static ArrayList<Assembly> prune(Alternation a, ArrayList<Assembly> out) {
+        return a.prune(out);
+    }
+
+    /*
+     * Match a repetition as Repetition.match() does, with the handle of
+     * its subparser.
+     */
+    @SuppressWarnings("unchecked")
+    private static ArrayList<Assembly> repeat(Repetition r, MethodHandle body, ArrayList<Assembly> in) throws Throwable {
+        if (r.preAssembler != null) {
+            assemble(r.preAssembler, in);
+        }
+        ArrayList<Assembly> out = empty(in);
+        ArrayList<Assembly> s = in;
+        while (!s.isEmpty()) {
+            s = r.prune((ArrayList<Assembly>) body.invokeExact(s));
+            out.addAll(s);
+        }
+        return r.prune(out);
+    }
+
+    private static ArrayList<Assembly> terminal(Terminal t, ArrayList<Assembly> in) {
+        ArrayList<Assembly> out = new ArrayList<Assembly>();
+        for (int i = 0, n = in.size(); i < n; i++) {
+            Assembly b = t.matchOneAssembly(in.get(i));
+            if (b != null) {
+                out.add(b);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * @(#)HandleParser.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+
+/**
+ * A HandleParser matches with a grammar that a
+ * <code>HandleGrammarCompiler</code> has compiled into a tree of
+ * method handles. It returns what the grammar would.
+ * <p>
+ * The handles keep no state, so one handle parser may be used by
+ * many threads at once.
+ */
+public class HandleParser extends Parser {
+
+    protected final Parser grammar;
+    protected final MethodHandle handle;
+
+    /*
+     * Constructs a parser that invokes the given handle. Use
+     * HandleGrammarCompiler.compile() to make one.
+     */
+    HandleParser(Parser grammar, MethodHandle handle) {
+        super(grammar.getName());
+        this.grammar = grammar;
+        this.handle = handle;
+        this.frozen = true;
+    }
+
+    /**
+     * Passes a visitor on to the grammar this parser was compiled
+     * from.
+     *
+     * @param pv the visitor to accept
+     * @param visited a collection of previously visited parsers
+     */
+    public void accept(ParserVisitor pv, ArrayList<Assembly> visited) {
+        grammar.accept(pv, visited);
+    }
+
+    /**
+     * Returns the grammar this parser was compiled from.
+     *
+     * @return the grammar this parser was compiled from
+     */
+    public Parser getGrammar() {
+        return grammar;
+    }
+
+    /**
+     * Matches the compiled grammar against a collection of assemblies.
+     *
+     * @param in a collection of assemblies to match against
+     * @return the assemblies that result from the matches
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayList<Assembly> match(ArrayList<Assembly> in) {
+        try {
+            return (ArrayList<Assembly>) handle.invokeExact(in);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Returns a random expansion of the grammar.
+     */
+    protected ArrayList<?> randomExpansion(int maxDepth, int depth) {
+        return grammar.randomExpansion(maxDepth, depth);
+    }
+
+    /**
+     * Returns a textual description of the grammar.
+     */
+    protected String unvisitedString(ArrayList<Parser> visited) {
+        return grammar.unvisitedString(visited);
+    }
+}
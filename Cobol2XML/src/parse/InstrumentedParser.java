@@ -0,0 +1,137 @@
+/*
+ * @(#)InstrumentedParser.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.ArrayList;
+
+/**
+ * An InstrumentedParser wraps a named parser and adds what the
+ * parser's <code>matchAndAssemble()</code> does to the parser's
+ * <code>ParserStats</code>.
+ * <p>
+ * <code>instrument()</code> wraps the named parsers of an existing
+ * grammar with a <code>GrammarRewriter</code>, as
+ * <code>MemoTable.memoize()</code> does, so the grammar need not be
+ * rewritten; only the names need be given.
+ * Unnamed parsers are counted as part of the named parser that calls
+ * them.
+ */
+public class InstrumentedParser extends Parser {
+
+    protected Parser subparser;
+    protected ParserStats stats;
+
+    /**
+     * Constructs a parser that counts the given parser's matches
+     * against its name.
+     *
+     * @param subparser the parser to wrap
+     */
+    public InstrumentedParser(Parser subparser) {
+        super(subparser.getName());
+        this.subparser = subparser;
+        this.stats = ParserStats.forName(subparser.getName());
+    }
+
+    /**
+     * Passes a visitor on to the wrapped parser, so this wrapper does
+     * not show up in a walk of the grammar.
+     *
+     * @param pv the visitor to accept
+     * @param visited a collection of previously visited parsers
+     */
+    public void accept(ParserVisitor pv, ArrayList<Assembly> visited) {
+        subparser.accept(pv, visited);
+    }
+
+    /**
+     * Returns the parser this parser wraps.
+     *
+     * @return the parser this parser wraps
+     */
+    public Parser getSubparser() {
+        return subparser;
+    }
+
+    /**
+     * Returns the counts this parser adds to.
+     *
+     * @return the counts this parser adds to
+     */
+    public ParserStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Matches and assembles with the wrapped parser, timing it and
+     * counting the assemblies that go in, come out, and are cloned.
+     *
+     * @param in a collection of assemblies to match against
+     * @return the assemblies that result from the matches
+     */
+    public ArrayList<Assembly> match(ArrayList<Assembly> in) {
+        long[] cloneCounter = ParserStats.cloneCounter();
+        long clonesBefore = cloneCounter[0];
+        long start = System.nanoTime();
+        ArrayList<Assembly> out = subparser.matchAndAssemble(in);
+        long elapsed = System.nanoTime() - start;
+        stats.record(in.size(), out.size(), cloneCounter[0] - clonesBefore, elapsed);
+        return out;
+    }
+
+    /**
+     * Wraps every named parser of a grammar in an
+     * <code>InstrumentedParser</code>, and returns the grammar's new
+     * start parser.
+     *
+     * @param root the start parser of the grammar
+     * @return the instrumented start parser
+     * @throws IllegalStateException if the grammar is frozen;
+     *         instrument a grammar before freezing it
+     */
+    public static Parser instrument(Parser root) {
+        return new GrammarRewriter() {
+            // wrap named parsers not already wrapped
+            protected Parser wrapperFor(Parser p) {
+                String name = p.getName();
+                if (name == null || name.isEmpty() || p instanceof InstrumentedParser) {
+                    return p;
+                }
+                return new InstrumentedParser(p);
+            }
+        }.rewrite(root);
+    }
+
+    /**
+     * Returns a random expansion of the wrapped parser.
+     */
+    protected ArrayList<?> randomExpansion(int maxDepth, int depth) {
+        return subparser.randomExpansion(maxDepth, depth);
+    }
+
+    /**
+     * Returns a textual description of the wrapped parser.
+     */
+    protected String unvisitedString(ArrayList<Parser> visited) {
+        return subparser.unvisitedString(visited);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * @(#)MemoParser.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.ArrayList;
+
+/**
+ * A MemoParser wraps another parser and remembers, in a
+ * <code>MemoTable</code>, what the parser's
+ * <code>matchAndAssemble()</code> made of each collection of
+ * assemblies it saw.
+ * <p>
+ * A collection is remembered as a whole, rather than assembly by
+ * assembly, so the results are those the wrapped parser returns, in
+ * the order it returns them. <code>best()</code>, which prefers the
+ * first of equally long matches, therefore picks the same assembly
+ * whether or not a grammar is memoized.
+ */
+public class MemoParser extends Parser {
+
+    protected Parser subparser;
+    protected MemoTable table;
+
+    /**
+     * Constructs a parser that remembers the results of the given
+     * parser in the given table.
+     *
+     * @param subparser the parser to wrap
+     * @param table the table to remember results in
+     */
+    public MemoParser(Parser subparser, MemoTable table) {
+        super(subparser.getName());
+        this.subparser = subparser;
+        this.table = table;
+    }
+
+    /**
+     * Passes a visitor on to the wrapped parser, so this wrapper does
+     * not show up in a walk of the grammar.
+     *
+     * @param pv the visitor to accept
+     * @param visited a collection of previously visited parsers
+     */
+    public void accept(ParserVisitor pv, ArrayList<Assembly> visited) {
+        subparser.accept(pv, visited);
+    }
+
+    /**
+     * Returns the parser this parser wraps.
+     *
+     * @return the parser this parser wraps
+     */
+    public Parser getSubparser() {
+        return subparser;
+    }
+
+    /**
+     * Given a set of assemblies, returns copies of the remembered
+     * results if the table knows assemblies in the same states, and
+     * otherwise matches the wrapped parser against them and remembers
+     * what it returns.
+     *
+     * @param in a collection of assemblies to match against
+     * @return the assemblies that result from the matches
+     */
+    public ArrayList<Assembly> match(ArrayList<Assembly> in) {
+        MemoTable.Key key = table.keyFor(subparser, in);
+        ArrayList<Assembly> cached = table.get(key);
+        if (cached != null) {
+            return elementClone(cached);
+        }
+        ArrayList<Assembly> out = subparser.matchAndAssemble(in);
+        table.put(key, elementClone(out));
+        return out;
+    }
+
+    /**
+     * Returns a random expansion of the wrapped parser.
+     */
+    protected ArrayList<?> randomExpansion(int maxDepth, int depth) {
+        return subparser.randomExpansion(maxDepth, depth);
+    }
+
+    /**
+     * Returns a textual description of the wrapped parser.
+     */
+    protected String unvisitedString(ArrayList<Parser> visited) {
+        return subparser.unvisitedString(visited);
+    }
+}
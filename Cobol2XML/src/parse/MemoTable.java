@@ -0,0 +1,258 @@
+/*
+ * @(#)MemoTable.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A MemoTable remembers the assemblies that result when a parser
+ * matches a collection of assemblies, so that matching the same
+ * parser against assemblies in the same states again costs a table
+ * lookup.
+ * <p>
+ * An entry is keyed by the parser's identity and, for each assembly
+ * in order, its input and its state: the number of elements it has
+ * consumed, its stack, and its target. Inputs compare by identity, so
+ * a table may be used for any number of inputs, one after another,
+ * without results for one being returned for another. The table
+ * holds at most a fixed number of entries and evicts the least
+ * recently used one to make room for another.
+ * <p>
+ * <code>memoize()</code> wraps the nonterminals of an existing
+ * grammar in <code>MemoParser</code>s that share one table, so a
+ * grammar such as the one <code>CobolParser</code> builds gains
+ * memoization without being rewritten. A table is not thread-safe;
+ * use one table per thread.
+ */
+public class MemoTable {
+
+    /**
+     * The number of entries a table holds unless told otherwise.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    protected final int capacity;
+    protected long hits;
+    protected long misses;
+    protected long evictions;
+    protected final LinkedHashMap<Key, ArrayList<Assembly>> entries;
+
+    /**
+     * Constructs a table with the default capacity.
+     */
+    public MemoTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a table that holds at most the given number of
+     * entries.
+     *
+     * @param capacity the largest number of entries to hold
+     */
+    public MemoTable(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, ArrayList<Assembly>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ArrayList<Assembly>> eldest) {
+                if (size() > MemoTable.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Forgets every entry, leaving the counts alone.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of entries this table has evicted.
+     *
+     * @return the number of entries this table has evicted
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /*
+     * Returns the results remembered for the given key, or null,
+     * counting the lookup as a hit or a miss.
+     */
+    ArrayList<Assembly> get(Key key) {
+        ArrayList<Assembly> out = entries.get(key);
+        if (out == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return out;
+    }
+
+    /**
+     * Returns the number of lookups that found an entry.
+     *
+     * @return the number of lookups that found an entry
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /*
+     * Returns a key that captures the states of some assemblies now,
+     * before a parser works on them.
+     */
+    Key keyFor(Parser p, ArrayList<Assembly> in) {
+        return new Key(p, in);
+    }
+
+    /**
+     * Wraps every nonterminal of a grammar in a <code>MemoParser</code>
+     * that consults the given table, and returns the grammar's new
+     * start parser.
+     * <p>
+     * Terminals are left alone, since matching one is cheaper than
+     * looking it up.
+     *
+     * @param root the start parser of the grammar
+     * @param table the table the wrappers share
+     * @return the memoizing start parser
+     * @throws IllegalStateException if the grammar is frozen; memoize
+     *         a grammar before freezing it
+     */
+    public static Parser memoize(Parser root, final MemoTable table) {
+        return new GrammarRewriter() {
+            // wrap nonterminals; a MemoParser is neither
+            protected Parser wrapperFor(Parser p) {
+                if (!(p instanceof CollectionParser || p instanceof Repetition)) {
+                    return p;
+                }
+                return new MemoParser(p, table);
+            }
+        }.rewrite(root);
+    }
+
+    /**
+     * Returns the number of lookups that found no entry.
+     *
+     * @return the number of lookups that found no entry
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /*
+     * Remember the results of matching the keyed state.
+     */
+    void put(Key key, ArrayList<Assembly> out) {
+        entries.put(key, out);
+    }
+
+    /**
+     * Returns the number of entries in this table.
+     *
+     * @return the number of entries in this table
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a textual description of this table's counts.
+     *
+     * @return a textual description of this table's counts
+     */
+    @Override
+    public String toString() {
+        return "MemoTable[size=" + size() + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    /*
+     * The states of a collection of assemblies as a parser sees them.
+     * Inputs and targets compare by identity, since copies of an
+     * assembly share its input, and share its target until one of
+     * them changes it.
+     */
+    static final class Key {
+        final Parser parser;
+        final Object[] sources;
+        final int[] indexes;
+        final ConsStack<?>[] stacks;
+        final Object[] targets;
+        final int hash;
+
+        Key(Parser parser, ArrayList<Assembly> in) {
+            int n = in.size();
+            this.parser = parser;
+            this.sources = new Object[n];
+            this.indexes = new int[n];
+            this.stacks = new ConsStack<?>[n];
+            this.targets = new Object[n];
+            int h = System.identityHashCode(parser);
+            for (int i = 0; i < n; i++) {
+                Assembly a = in.get(i);
+                sources[i] = a.source();
+                indexes[i] = a.index;
+                stacks[i] = a.stack;
+                targets[i] = a.target;
+                h = ((h * 31 + System.identityHashCode(sources[i])) * 31 + indexes[i]) * 31 + stacks[i].hashCode();
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            if (parser != k.parser || hash != k.hash || indexes.length != k.indexes.length) {
+                return false;
+            }
+            for (int i = 0; i < indexes.length; i++) {
+                if (sources[i] != k.sources[i] || indexes[i] != k.indexes[i]
+                        || targets[i] != k.targets[i] || !stacks[i].equals(k.stacks[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
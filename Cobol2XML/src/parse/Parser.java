@@ -30,6 +30,12 @@ public abstract class Parser {
      */
     protected Assembler assembler;
 
+    /*
+     * Whether this parser has been frozen, so that it can no longer
+     * be changed
+     */
+    protected boolean frozen;
+
     /**
      * Constructs a Parser object with an empty name.
      */
@@ -65,6 +71,55 @@ public abstract class Parser {
      */
     public abstract void accept(ParserVisitor pv, ArrayList<Assembly> visited);
 
+    /**
+     * Freezes this parser and every parser it refers to, so that none
+     * of them can be changed again.
+     * <p>
+     * A frozen grammar keeps no state of its own while it matches; the
+     * state of a match lives entirely in its assemblies. So once it is
+     * frozen, one instance of a grammar may be used by many threads at
+     * once, provided its assemblers keep no state either.
+     *
+     * @return this
+     */
+    public Parser freeze() {
+        GrammarWalker w = new GrammarWalker() {
+            protected void visitParser(Parser p) {
+                p.freezeThis();
+            }
+        };
+        w.walk(this);
+        return this;
+    }
+
+    /**
+     * Returns true if this parser has been frozen.
+     *
+     * @return true, if this parser has been frozen
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /*
+     * Freeze this parser alone. Subclasses that cache anything they
+     * compute from their structure compute it here, so that a frozen
+     * parser never writes to itself.
+     */
+    protected void freezeThis() {
+        frozen = true;
+    }
+
+    /*
+     * Throw an IllegalStateException if this parser has been frozen.
+     * Every method that changes a parser calls this first.
+     */
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException(getClass().getSimpleName() + " is frozen and cannot be changed");
+        }
+    }
+
     /**
      * Adds the elements of one ArrayList to another.
      *
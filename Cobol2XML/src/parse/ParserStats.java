@@ -0,0 +1,236 @@
+/*
+ * @(#)ParserStats.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A ParserStats counts what one named parser of a grammar does: how
+ * often it is asked to match, how many assemblies go in and come out,
+ * how many assemblies are cloned meanwhile, and how long it takes.
+ * Clones and time include those of the parsers it calls, so the
+ * counts for a grammar's start parser cover the whole parse.
+ * <p>
+ * Counting is switched on for a run by the system property
+ * <code>parse.stats</code>:
+ * <pre>
+ *     java -Dparse.stats=true ...
+ * </pre>
+ * Only then do <code>InstrumentedParser</code>s get wrapped around a
+ * grammar's parsers and <code>Assembly.clone()</code> count clones.
+ * The switch is a constant, so when it is off the compiler drops the
+ * counting altogether.
+ * <p>
+ * There is one ParserStats per parser name, shared by every grammar
+ * and thread. Each is registered as an MBean named
+ * <code>parse:type=ParserStats,name=...</code>, and
+ * <code>dump()</code> prints them all.
+ */
+public class ParserStats implements ParserStatsMBean {
+
+    private static final Logger LOGGER = Logger.getLogger(ParserStats.class.getName());
+
+    /**
+     * True if parsers are to be counted in this run.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("parse.stats");
+
+    /*
+     * Each thread's count of the assemblies it has cloned
+     */
+    private static final ThreadLocal<long[]> CLONES = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    /*
+     * The stats for each parser name
+     */
+    private static final ConcurrentMap<String, ParserStats> ALL = new ConcurrentHashMap<String, ParserStats>();
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder assembliesIn = new LongAdder();
+    private final LongAdder assembliesOut = new LongAdder();
+    private final LongAdder clones = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    /*
+     * Stats are made by forName(), which registers them.
+     */
+    private ParserStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the stats for the named parser, making and registering
+     * them the first time the name is asked for.
+     *
+     * @param name a parser's name
+     * @return the stats for the named parser
+     */
+    public static ParserStats forName(String name) {
+        ParserStats s = ALL.get(name);
+        if (s == null) {
+            ParserStats made = new ParserStats(name);
+            s = ALL.putIfAbsent(name, made);
+            if (s == null) {
+                s = made;
+                register(s);
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Returns the stats of every parser counted so far, the most time
+     * consuming first.
+     *
+     * @return the stats of every parser counted so far
+     */
+    public static List<ParserStats> all() {
+        List<ParserStats> list = new ArrayList<ParserStats>(ALL.values());
+        Collections.sort(list, new Comparator<ParserStats>() {
+            public int compare(ParserStats a, ParserStats b) {
+                return Long.compare(b.getNanos(), a.getNanos());
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Prints a line of counts for every parser counted so far, the
+     * most time consuming first.
+     *
+     * @param out the stream to print to
+     */
+    public static void dump(PrintStream out) {
+        out.println(String.format("%-24s %12s %12s %12s %12s %12s",
+                "parser", "calls", "in", "out", "clones", "ms"));
+        for (ParserStats s : all()) {
+            out.println(String.format("%-24s %12d %12d %12d %12d %12.3f",
+                    s.name, s.getInvocations(), s.getAssembliesIn(), s.getAssembliesOut(),
+                    s.getClones(), s.getNanos() / 1e6));
+        }
+    }
+
+    /*
+     * Count a clone against the current thread. Assembly.clone() calls
+     * this, when counting is on.
+     */
+    static void countClone() {
+        CLONES.get()[0]++;
+    }
+
+    /*
+     * Return the current thread's clone counter.
+     */
+    static long[] cloneCounter() {
+        return CLONES.get();
+    }
+
+    /*
+     * Add one match to the counts.
+     */
+    void record(int in, int out, long cloned, long elapsed) {
+        invocations.increment();
+        assembliesIn.add(in);
+        assembliesOut.add(out);
+        clones.add(cloned);
+        nanos.add(elapsed);
+    }
+
+    /*
+     * Register stats with the platform MBean server. A failure to
+     * register loses the MBean, not the counts.
+     */
+    private static void register(ParserStats s) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName("parse:type=ParserStats,name=" + ObjectName.quote(s.name));
+            if (!server.isRegistered(on)) {
+                server.registerMBean(s, on);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Cannot register stats for parser " + s.name, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getAssembliesIn() {
+        return assembliesIn.sum();
+    }
+
+    public long getAssembliesOut() {
+        return assembliesOut.sum();
+    }
+
+    public long getClones() {
+        return clones.sum();
+    }
+
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    public void reset() {
+        invocations.reset();
+        assembliesIn.reset();
+        assembliesOut.reset();
+        clones.reset();
+        nanos.reset();
+    }
+
+    /**
+     * Returns a textual description of these counts.
+     *
+     * @return a textual description of these counts
+     */
+    @Override
+    public String toString() {
+        return "ParserStats[" + name + ": calls=" + getInvocations() + ", in=" + getAssembliesIn()
+                + ", out=" + getAssembliesOut() + ", clones=" + getClones() + ", nanos=" + getNanos() + "]";
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * @(#)ParserStatsMBean.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse;
+
+/**
+ * The management interface of <code>ParserStats</code>: what one
+ * named parser of a grammar has done, as JMX sees it.
+ */
+public interface ParserStatsMBean {
+
+    /**
+     * Returns the name of the parser these counts are for.
+     *
+     * @return the name of the parser
+     */
+    String getName();
+
+    /**
+     * Returns the number of times the parser has been asked to match.
+     *
+     * @return the number of times the parser has matched
+     */
+    long getInvocations();
+
+    /**
+     * Returns the number of assemblies given to the parser.
+     *
+     * @return the number of assemblies given to the parser
+     */
+    long getAssembliesIn();
+
+    /**
+     * Returns the number of assemblies the parser has returned.
+     *
+     * @return the number of assemblies the parser has returned
+     */
+    long getAssembliesOut();
+
+    /**
+     * Returns the number of assemblies cloned while the parser, and
+     * the parsers it calls, were matching.
+     *
+     * @return the number of assemblies cloned
+     */
+    long getClones();
+
+    /**
+     * Returns the time spent matching the parser, and the parsers it
+     * calls, in nanoseconds.
+     *
+     * @return the time spent matching, in nanoseconds
+     */
+    long getNanos();
+
+    /**
+     * Sets every count back to zero.
+     */
+    void reset();
+}
@@ -40,6 +40,16 @@ public class Repetition extends Parser {
      */
     protected Assembler preAssembler;
 
+    /*
+     * the beam that bounds the states kept, or null to keep them all
+     */
+    protected Beam beam;
+
+    /*
+     * the interner that collapses duplicate states, or null
+     */
+    protected AssemblyInterner interner;
+
     /**
      * Constructs a repetition of the given parser.
      *
@@ -99,10 +109,10 @@ public class Repetition extends Parser {
         ArrayList<Assembly> out = elementClone(in);
         ArrayList<Assembly> s = in; // a working state
         while (!s.isEmpty()) {
-            s = subparser.matchAndAssemble(s);
+            s = prune(subparser.matchAndAssemble(s));
             add(out, s);
         }
-        return out;
+        return prune(out);
     }
 
     /**
@@ -130,6 +140,43 @@ public class Repetition extends Parser {
         return v;
     }
 
+    /**
+     * Sets a beam to bound the states this repetition keeps, both
+     * between rounds and in its result; null keeps them all.
+     *
+     * @param beam the beam to prune with, or null
+     * @return Parser this
+     */
+    public Parser setBeam(Beam beam) {
+        checkNotFrozen();
+        this.beam = beam;
+        return this;
+    }
+
+    /**
+     * Sets an interner to collapse duplicate states, both between
+     * rounds and in this repetition's result; null keeps them all.
+     *
+     * @param interner the interner to collapse duplicates with, or null
+     * @return Parser this
+     */
+    public Parser setInterner(AssemblyInterner interner) {
+        checkNotFrozen();
+        this.interner = interner;
+        return this;
+    }
+
+    /*
+     * Return the states that survive this repetition's interner and
+     * beam.
+     */
+    protected ArrayList<Assembly> prune(ArrayList<Assembly> v) {
+        if (interner != null) {
+            v = interner.unique(v);
+        }
+        return beam == null ? v : beam.prune(v);
+    }
+
     /**
      * Sets the object that will work on every assembly before matching against it.
      *
@@ -137,6 +184,7 @@ public class Repetition extends Parser {
      * @return Parser this
      */
     public Parser setPreAssembler(Assembler preAssembler) {
+        checkNotFrozen();
         this.preAssembler = preAssembler;
         return this;
     }
@@ -124,6 +124,7 @@ public ArrayList<String> randomExpansion(int maxDepth, int depth) {
  * @return this
  */
 public Terminal setDiscard(boolean discard) {
+    checkNotFrozen();
     this.discard = discard; // Set the discard flag
     return this;
 }
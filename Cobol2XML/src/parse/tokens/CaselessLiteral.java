@@ -20,17 +20,41 @@
 
 package parse.tokens;
 
-import java.util.Objects;
-
+/**
+ * A CaselessLiteral matches a word without regard to case.
+ * <p>
+ * The word is interned in the shared <code>KeywordTable</code> when
+ * the literal is made, so matching a token compares the token's
+ * keyword id with the literal's.
+ */
 public class CaselessLiteral extends Literal {
 
+    /*
+     * the keyword id of the literal, or NONE if it is not a word
+     */
+    protected final int keywordId;
+
     public CaselessLiteral(String literal) {
         super(literal);
+        this.keywordId = this.literal.ttype() == Token.TT_WORD
+                ? KeywordTable.shared().intern(this.literal.sval())
+                : KeywordTable.NONE;
     }
 
     @Override
     protected boolean qualifies(Object o) {
-        return Objects.equals(literal, ((Token) o).getLiteral());
+        if (keywordId == KeywordTable.NONE) {
+            return literal.equalsIgnoreCase(o);
+        }
+        return ((Token) o).keywordId() == keywordId;
+    }
+
+    @Override
+    protected boolean qualifies(PackedTokenString tokens, int i) {
+        if (keywordId == KeywordTable.NONE) {
+            return tokens.matches(i, literal, true);
+        }
+        return tokens.keywordId(i) == keywordId;
     }
 
     @Override
@@ -0,0 +1,163 @@
+/*
+ * @(#)CompositeTokenString.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.util.Arrays;
+
+/**
+ * A CompositeTokenString is a token string made of stretches of other
+ * token strings, laid end to end, without copying their tokens.
+ * <p>
+ * It is how a copybook's tokens are spliced into a program: the
+ * program's tokens up to a COPY statement, then the copybook's, then
+ * the program's again. Finding a token takes a binary search over the
+ * starts of the stretches.
+ */
+public class CompositeTokenString extends TokenString {
+
+    protected int count;
+    protected TokenString[] parts = new TokenString[4];
+    protected int[] offsets = new int[4];
+    protected int[] starts = new int[4];
+    protected int length;
+
+    /**
+     * Constructs an empty composite, to be filled with
+     * <code>append()</code>.
+     */
+    public CompositeTokenString() {
+        super(new Token[0]);
+    }
+
+    /**
+     * Appends all the tokens of the given token string.
+     *
+     * @param ts the token string to append
+     * @return this
+     */
+    public CompositeTokenString append(TokenString ts) {
+        return append(ts, 0, ts.length());
+    }
+
+    /**
+     * Appends a stretch of the given token string.
+     *
+     * @param ts the token string to take tokens from
+     * @param from the index of the first token to append
+     * @param len the number of tokens to append
+     * @return this
+     */
+    public CompositeTokenString append(TokenString ts, int from, int len) {
+        if (from < 0 || len < 0 || from + len > ts.length()) {
+            throw new IndexOutOfBoundsException("Cannot append " + len + " tokens from " + from);
+        }
+        if (len == 0) {
+            return this;
+        }
+        if (ts instanceof CompositeTokenString) {
+            // flatten, so lookups stay one search deep
+            CompositeTokenString c = (CompositeTokenString) ts;
+            int end = from + len;
+            for (int k = c.partAt(from); k < c.count && c.starts[k] < end; k++) {
+                int lo = Math.max(from, c.starts[k]);
+                int hi = Math.min(end, c.starts[k] + c.partLength(k));
+                appendPart(c.parts[k], c.offsets[k] + lo - c.starts[k], hi - lo);
+            }
+            return this;
+        }
+        appendPart(ts, from, len);
+        return this;
+    }
+
+    /*
+     * Append a stretch of a token string that is not a composite.
+     */
+    protected void appendPart(TokenString ts, int from, int len) {
+        if (count == parts.length) {
+            parts = Arrays.copyOf(parts, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2);
+            starts = Arrays.copyOf(starts, count * 2);
+        }
+        parts[count] = ts;
+        offsets[count] = from;
+        starts[count] = length;
+        count++;
+        length += len;
+    }
+
+    /**
+     * Returns the number of tokens in this token string.
+     *
+     * @return the number of tokens in this token string
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /*
+     * Return the index of the stretch that holds the token at i.
+     */
+    protected int partAt(int i) {
+        int k = Arrays.binarySearch(starts, 0, count, i);
+        return k >= 0 ? k : -k - 2;
+    }
+
+    /*
+     * Return the number of tokens in the stretch at k.
+     */
+    protected int partLength(int k) {
+        return (k + 1 < count ? starts[k + 1] : length) - starts[k];
+    }
+
+    /**
+     * Returns the token at the specified index.
+     *
+     * @param i the index of the desired token
+     * @return the token at the specified index
+     */
+    @Override
+    public Token tokenAt(int i) {
+        if (i < 0 || i >= length) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", length: " + length);
+        }
+        int k = partAt(i);
+        return parts[k].tokenAt(offsets[k] + i - starts[k]);
+    }
+
+    /**
+     * Returns a string representation of this token string.
+     *
+     * @return a string representation of this token string
+     */
+    @Override
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                buf.append(' ');
+            }
+            buf.append(tokenAt(i));
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * @(#)DecimalToken.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A DecimalToken is a number token that holds its value exactly, as
+ * a COBOL numeric literal means it, rather than as a double.
+ * <p>
+ * Most literals fit an unscaled <code>long</code> and a scale, so
+ * that 12.50 is 1250 with a scale of 2; only literals of more than
+ * eighteen digits are held as a <code>BigDecimal</code>. The double
+ * value that <code>nval()</code> returns is worked out the first time
+ * it is asked for, so a tokenizer that makes these tokens does no
+ * floating point arithmetic at all.
+ */
+public class DecimalToken extends Token {
+
+    /*
+     * The powers of ten that fit a long
+     */
+    protected static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    protected long unscaled;
+    protected int scale;
+    protected BigDecimal big;
+    protected boolean hasNval;
+
+    /**
+     * Constructs a number token with the value unscaled / 10^scale.
+     *
+     * @param unscaled the value's digits, without a decimal point
+     * @param scale the number of those digits after the decimal point
+     */
+    public DecimalToken(long unscaled, int scale) {
+        super(TT_NUMBER, "", 0);
+        this.unscaled = unscaled;
+        this.scale = scale;
+    }
+
+    /**
+     * Constructs a number token with the given value, which need not
+     * fit a long.
+     *
+     * @param value the value
+     */
+    public DecimalToken(BigDecimal value) {
+        super(TT_NUMBER, "", 0);
+        this.big = value;
+        this.scale = value.scale();
+    }
+
+    /**
+     * Returns true if this token's value is held as an unscaled long
+     * and a scale.
+     *
+     * @return true, if <code>unscaledValue()</code> is this token's
+     *         value
+     */
+    public boolean isCompact() {
+        return big == null;
+    }
+
+    /**
+     * Returns this token's digits, without a decimal point. This is
+     * only meaningful if the token is compact.
+     *
+     * @return this token's unscaled value
+     */
+    public long unscaledValue() {
+        return unscaled;
+    }
+
+    /**
+     * Returns the number of digits after the decimal point.
+     *
+     * @return this token's scale
+     */
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * Returns this token's exact value.
+     *
+     * @return this token's value, as a BigDecimal
+     */
+    public BigDecimal decimalValue() {
+        return big != null ? big : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Returns this token's value as a double, which may be inexact.
+     *
+     * @return the nearest double to this token's value
+     */
+    @Override
+    public double nval() {
+        if (!hasNval) {
+            if (big == null && scale < POWERS_OF_TEN.length && Math.abs(unscaled) < 1L << 53) {
+                nval = (double) unscaled / POWERS_OF_TEN[scale];
+            } else {
+                nval = decimalValue().doubleValue();
+            }
+            hasNval = true;
+        }
+        return nval;
+    }
+
+    /**
+     * Returns true if the supplied object is a number token of the
+     * same value. Two decimal tokens are compared exactly, so 1.0 and
+     * 1.00 are equal but 0.1 and a double near it may not be.
+     *
+     * @param o the object to compare
+     * @return true, if the supplied object is a number of the same
+     *         value
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof DecimalToken) {
+            DecimalToken d = (DecimalToken) o;
+            if (big == null && d.big == null && scale == d.scale) {
+                return unscaled == d.unscaled;
+            }
+            return decimalValue().compareTo(d.decimalValue()) == 0;
+        }
+        return o instanceof Token && ((Token) o).isNumber() && nval() == ((Token) o).nval();
+    }
+
+    /**
+     * Returns the hash code a Token with this token's value as a double
+     * would have, since a decimal token equals such a token.
+     *
+     * @return a hash code for this token
+     */
+    @Override
+    public int hashCode() {
+        return ((31 + Objects.hashCode(ttype)) * 31 + Objects.hashCode(sval)) * 31 + Double.hashCode(nval());
+    }
+
+    /**
+     * Returns true if the supplied object is a number token of the
+     * same value; case has no bearing on a number.
+     *
+     * @param o the object to compare
+     * @return true, if the supplied object is a number of the same
+     *         value
+     */
+    @Override
+    public boolean equalsIgnoreCase(Object o) {
+        return equals(o);
+    }
+
+    /**
+     * Returns this token's value, as it would be written in COBOL.
+     *
+     * @return this token's value, as text
+     */
+    @Override
+    public String toString() {
+        return decimalValue().toPlainString();
+    }
+}
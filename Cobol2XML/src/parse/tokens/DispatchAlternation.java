@@ -0,0 +1,252 @@
+/*
+ * @(#)DispatchAlternation.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.util.ArrayList;
+import java.util.TreeSet;
+
+import parse.Alternation;
+import parse.Assembly;
+import parse.CollectionParser;
+import parse.GrammarCompiler;
+import parse.Parser;
+
+/**
+ * A DispatchAlternation is an alternation that only tries the
+ * alternatives that can begin with an assembly's next token.
+ * <p>
+ * The first time it matches, it computes the FIRST set of each
+ * alternative and indexes the alternatives by the literal text,
+ * token type, or absence of a token they can start with. For each
+ * incoming assembly it then looks up the next token and runs only
+ * the alternatives listed for it. The lookup reads a
+ * <code>LexemeToken</code>'s text where it lies, so dispatching
+ * makes no strings. Alternatives that are nullable, or
+ * whose first token is unknown, are always run.
+ * <p>
+ * The alternatives that are skipped could not have matched, so the
+ * results, and their order, are those of a plain
+ * <code>Alternation</code>; so a <code>GrammarCompiler</code> compiles
+ * a dispatching alternation as a plain one that consults
+ * <code>candidates()</code>.
+ */
+public class DispatchAlternation extends Alternation {
+
+    /*
+     * The dispatch index; rebuilt when a subparser is added
+     */
+    protected volatile Index index;
+
+    static {
+        GrammarCompiler.trust(DispatchAlternation.class);
+    }
+
+    /**
+     * Constructs a nameless dispatching alternation.
+     */
+    public DispatchAlternation() {
+    }
+
+    /**
+     * Constructs a dispatching alternation with the given name.
+     *
+     * @param name a name to be known by
+     */
+    public DispatchAlternation(String name) {
+        super(name);
+    }
+
+    /**
+     * Adds an alternative, discarding the dispatch index.
+     *
+     * @param p the parser to add
+     * @return this
+     */
+    @Override
+    public CollectionParser add(Parser p) {
+        super.add(p);
+        index = null;
+        return this;
+    }
+
+    /**
+     * Builds the dispatch index now, so that a frozen alternation never
+     * writes to itself while it matches.
+     */
+    @Override
+    protected void freezeThis() {
+        super.freezeThis();
+        index = new Index(subparsers);
+    }
+
+    /**
+     * Returns the indexes of the alternatives that can begin a match
+     * of the given assembly, in increasing order.
+     *
+     * @param a an assembly
+     * @return the alternatives that can match the assembly
+     */
+    @Override
+    protected int[] candidates(Assembly a) {
+        Index ix = index;
+        if (ix == null) {
+            ix = new Index(subparsers);
+            index = ix;
+        }
+        if (!a.hasMoreElements()) {
+            return ix.atEnd;
+        }
+        Object o = a.peek();
+        if (!(o instanceof Token)) {
+            return ix.all;
+        }
+        Token t = (Token) o;
+        if (t.isWord()) {
+            return ix.lookup(ix.byWord, t, ix.anyWord);
+        }
+        if (t.isSymbol()) {
+            return ix.lookup(ix.bySymbol, t, ix.anySymbol);
+        }
+        if (t.isNumber()) {
+            return ix.anyNumber;
+        }
+        if (t.isQuotedString()) {
+            return ix.lookup(ix.byQuoted, t, ix.anyQuoted);
+        }
+        return ix.all;
+    }
+
+    /**
+     * Matches each alternative against the assemblies that can begin
+     * with one of its first tokens.
+     *
+     * @param in a collection of assemblies to match against
+     * @return the assemblies that result from the matches
+     */
+    @Override
+    public ArrayList<Assembly> match(ArrayList<Assembly> in) {
+        int n = in.size();
+        int[][] cands = new int[n][];
+        int[] next = new int[n];
+        for (int j = 0; j < n; j++) {
+            cands[j] = candidates(in.get(j));
+        }
+        ArrayList<Assembly> out = new ArrayList<Assembly>();
+        int size = subparsers.size();
+        for (int i = 0; i < size; i++) {
+            ArrayList<Assembly> these = null;
+            for (int j = 0; j < n; j++) {
+                int[] c = cands[j];
+                if (next[j] < c.length && c[next[j]] == i) {
+                    next[j]++;
+                    if (these == null) {
+                        these = new ArrayList<Assembly>();
+                    }
+                    these.add(in.get(j));
+                }
+            }
+            if (these != null) {
+                add(out, subparsers.get(i).matchAndAssemble(these));
+            }
+        }
+        return prune(out);
+    }
+
+    /*
+     * The alternatives indexed by the tokens they can begin with. Each
+     * key has an id in a table of its own, and the alternatives for a
+     * key are listed under its id.
+     */
+    protected static class Index {
+        int[] all;
+        int[] atEnd;
+        int[] anyWord;
+        int[] anySymbol;
+        int[] anyNumber;
+        int[] anyQuoted;
+        KeywordTable texts = new KeywordTable();
+        int[][] byWord;
+        int[][] bySymbol;
+        int[][] byQuoted;
+
+        Index(ArrayList<Parser> subparsers) {
+            FirstSetAnalyzer fsa = new FirstSetAnalyzer();
+            int n = subparsers.size();
+            FirstSet[] sets = new FirstSet[n];
+            TreeSet<String> keys = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 0; i < n; i++) {
+                sets[i] = fsa.first(subparsers.get(i));
+                keys.addAll(sets[i].keys);
+            }
+            all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            atEnd = select(sets, null, false, false, false);
+            anyWord = select(sets, null, true, false, false);
+            anySymbol = select(sets, null, false, false, false);
+            anyNumber = select(sets, null, false, true, false);
+            anyQuoted = select(sets, null, false, false, true);
+            byWord = new int[keys.size() + 1][];
+            bySymbol = new int[keys.size() + 1][];
+            byQuoted = new int[keys.size() + 1][];
+            for (String k : keys) {
+                int id = texts.intern(k);
+                byWord[id] = select(sets, k, true, false, false);
+                bySymbol[id] = select(sets, k, false, false, false);
+                byQuoted[id] = select(sets, k, false, false, true);
+            }
+        }
+
+        /*
+         * Return the alternatives listed for a token's text, or those
+         * that take any token of its type.
+         */
+        int[] lookup(int[][] byText, Token t, int[] any) {
+            int id = t.lookupKeyword(texts);
+            return id == KeywordTable.NONE ? any : byText[id];
+        }
+
+        /*
+         * Return the alternatives that can begin with the given key, or
+         * with any token of the flagged type, or with nothing.
+         */
+        static int[] select(FirstSet[] sets, String key, boolean word, boolean number, boolean quoted) {
+            int[] buf = new int[sets.length];
+            int count = 0;
+            for (int i = 0; i < sets.length; i++) {
+                FirstSet f = sets[i];
+                boolean takes = f.nullable || f.open
+                        || (key != null && f.keys.contains(key))
+                        || (word && f.anyWord)
+                        || (number && f.anyNumber)
+                        || (quoted && f.anyQuoted);
+                if (takes) {
+                    buf[count++] = i;
+                }
+            }
+            int[] c = new int[count];
+            System.arraycopy(buf, 0, c, 0, count);
+            return c;
+        }
+    }
+}
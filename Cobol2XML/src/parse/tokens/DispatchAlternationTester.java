@@ -0,0 +1,252 @@
+/*
+ * @(#)DispatchAlternationTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import parse.Alternation;
+import parse.Assembly;
+import parse.Empty;
+import parse.Parser;
+import parse.Repetition;
+import parse.Sequence;
+
+/**
+ * A DispatchAlternationTester checks that a
+ * <code>DispatchAlternation</code> matches exactly as a plain
+ * <code>Alternation</code> of the same alternatives does.
+ * <p>
+ * It matches random token strings against both, once with tokens
+ * that hold their text as strings and once with
+ * <code>LexemeToken</code>s that hold it in a shared array, and
+ * compares the assemblies each returns, in order. For every
+ * alternative that matches a string on its own, it also checks that
+ * the alternative's FIRST set listed it as a candidate. Finally it
+ * checks that adding to a frozen dispatching alternation fails and
+ * leaves its index in place.
+ * <p>
+ * The tester exits with status 1 if any check fails.
+ */
+public class DispatchAlternationTester {
+
+    protected static final String[] WORDS = {
+            "move", "MOVE", "Move", "to", "x", "(", ")", "=", "<>", "1", "2.5", "'a'", "end" };
+
+    protected Random random;
+    protected long strings;
+    protected long matches;
+    protected long failures;
+
+    /**
+     * Constructs a tester that makes up strings from the given seed.
+     *
+     * @param seed the seed for the random strings
+     */
+    public DispatchAlternationTester(long seed) {
+        random = new Random(seed);
+    }
+
+    /*
+     * Return the alternatives under test, which cover each kind of
+     * FIRST set: literals with and without case, symbols, any word,
+     * number or quoted string, and nullable parsers.
+     */
+    protected static Parser[] alternatives() {
+        Sequence move = new Sequence();
+        move.add(new CaselessLiteral("move"));
+        move.add(new Word());
+        move.add(new CaselessLiteral("to"));
+        move.add(new Word());
+        Sequence paren = new Sequence();
+        paren.add(new Symbol('('));
+        paren.add(new Repetition(new Num()));
+        paren.add(new Symbol(')'));
+        Sequence ne = new Sequence();
+        ne.add(new Symbol("<>"));
+        ne.add(new Num());
+        return new Parser[] {
+                move, new Literal("MOVE"), paren, new Word(), ne, new Num(),
+                new QuotedString(), new Repetition(new Symbol('=')), new Empty() };
+    }
+
+    /*
+     * Add the alternatives to an alternation, and return it.
+     */
+    protected static Alternation fill(Alternation a) {
+        for (Parser p : alternatives()) {
+            a.add(p);
+        }
+        return a;
+    }
+
+    /*
+     * Return the tokens of a string of the given words, as strings or
+     * as slices of one array.
+     */
+    protected static Token[] tokens(String[] words, boolean lexemes) {
+        char[] text = String.join(" ", words).toCharArray();
+        Token[] tokens = new Token[words.length];
+        int offset = 0;
+        for (int i = 0; i < words.length; i++) {
+            String w = words[i];
+            char c = w.charAt(0);
+            TokenType type = Character.isDigit(c) ? Token.TT_NUMBER
+                    : Character.isLetter(c) ? Token.TT_WORD
+                    : c == '\'' ? Token.TT_QUOTED : Token.TT_SYMBOL;
+            if (type == Token.TT_NUMBER) {
+                tokens[i] = new Token(Double.parseDouble(w));
+            } else if (lexemes) {
+                tokens[i] = new LexemeToken(type, text, offset, w.length());
+            } else {
+                tokens[i] = new Token(type, w, 0);
+            }
+            offset += w.length() + 1;
+        }
+        return tokens;
+    }
+
+    /*
+     * Return a collection holding an assembly of the given tokens.
+     */
+    protected static ArrayList<Assembly> start(Token[] tokens) {
+        ArrayList<Assembly> in = new ArrayList<Assembly>();
+        in.add(new TokenAssembly(new TokenString(tokens)));
+        return in;
+    }
+
+    /**
+     * Matches a string of the given words against a plain and a
+     * dispatching alternation, and returns true if they agree and the
+     * dispatching one listed every alternative that can match.
+     *
+     * @param words the words of the string
+     * @param plain a plain alternation
+     * @param dispatch a dispatching alternation of the same
+     * alternatives
+     * @return true, if the alternations agree
+     */
+    public boolean check(String[] words, Alternation plain, DispatchAlternation dispatch) {
+        strings++;
+        boolean ok = true;
+        for (int k = 0; k < 2; k++) {
+            Token[] tokens = tokens(words, k == 1);
+            ArrayList<Assembly> a = plain.matchAndAssemble(start(tokens));
+            ArrayList<Assembly> b = dispatch.matchAndAssemble(start(tokens));
+            matches += a.size();
+            boolean same = a.size() == b.size();
+            for (int i = 0; same && i < a.size(); i++) {
+                same = a.get(i).sameState(b.get(i));
+            }
+            if (!same) {
+                ok = fail("DIFFERS: " + String.join(" ", words) + "\n    plain: " + a + "\n    dispatch: " + b);
+            }
+            int[] candidates = dispatch.candidates(start(tokens).get(0));
+            ArrayList<Parser> subs = dispatch.getSubparsers();
+            for (int i = 0; i < subs.size(); i++) {
+                if (!subs.get(i).matchAndAssemble(start(tokens)).isEmpty() && !contains(candidates, i)) {
+                    ok = fail("NOT A CANDIDATE: " + subs.get(i) + " for " + String.join(" ", words)
+                            + ", FIRST " + new FirstSetAnalyzer().first(subs.get(i)));
+                }
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Checks that a frozen dispatching alternation refuses a new
+     * alternative and keeps the index it built when it was frozen.
+     *
+     * @return true, if the alternation refused the alternative
+     */
+    public boolean checkFrozen() {
+        DispatchAlternation d = (DispatchAlternation) fill(new DispatchAlternation());
+        d.freeze();
+        DispatchAlternation.Index ix = d.index;
+        try {
+            d.add(new Word());
+            return fail("ADDED to a frozen alternation");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        if (d.index != ix) {
+            return fail("INDEX DISCARDED by a refused add");
+        }
+        return true;
+    }
+
+    /*
+     * Return a string of up to six random words.
+     */
+    protected String[] randomWords() {
+        String[] words = new String[random.nextInt(7)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = WORDS[random.nextInt(WORDS.length)];
+        }
+        return words;
+    }
+
+    /*
+     * Return true if a sorted array holds the given value.
+     */
+    protected static boolean contains(int[] c, int value) {
+        for (int x : c) {
+            if (x == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Report a failure, and return false.
+     */
+    protected boolean fail(String message) {
+        if (failures < 10) {
+            System.out.println(message);
+        }
+        failures++;
+        return false;
+    }
+
+    /**
+     * Checks random strings against the two alternations.
+     *
+     * @param args [strings [seed]]
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        DispatchAlternationTester tester = new DispatchAlternationTester(seed);
+        Alternation plain = fill(new Alternation());
+        DispatchAlternation dispatch = (DispatchAlternation) fill(new DispatchAlternation());
+        for (int i = 0; i < n; i++) {
+            tester.check(tester.randomWords(), plain, dispatch);
+        }
+        tester.checkFrozen();
+        System.out.println(tester.strings + " strings, " + tester.matches + " assemblies, "
+                + tester.failures + " failures");
+        if (tester.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
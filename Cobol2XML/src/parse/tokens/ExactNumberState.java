@@ -0,0 +1,171 @@
+/*
+ * @(#)ExactNumberState.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.math.BigDecimal;
+
+/**
+ * An ExactNumberState builds numbers as COBOL means them: exactly, as
+ * <code>DecimalToken</code>s, rather than as doubles.
+ * <p>
+ * The digits of a number are gathered into an unscaled
+ * <code>long</code>, counting those after the decimal point as its
+ * scale, so that <code>PIC 9(18)</code> values and long fractions
+ * keep every digit. The text of the number is kept as well, in a
+ * buffer this state reuses, and only if the digits overflow a long is
+ * it turned into a <code>BigDecimal</code>. There is no floating
+ * point arithmetic and no boxing on the way.
+ * <p>
+ * A decimal point belongs to a number only if a digit follows it. A
+ * point after the last digit is left for the symbol state, since in
+ * COBOL it ends the sentence: <code>VALUE 12.</code> is the number 12
+ * and a full stop.
+ * <p>
+ * <code>install()</code> puts one of these in place of a tokenizer's
+ * number state.
+ */
+public class ExactNumberState extends NumberState {
+
+    /*
+     * The largest unscaled value that another digit cannot overflow
+     */
+    protected static final long LIMIT = Long.MAX_VALUE / 10;
+
+    /*
+     * The text of the number being built, and how much of it there is
+     */
+    protected char[] text = new char[32];
+    protected int length;
+
+    protected long unscaled;
+    protected int scale;
+    protected boolean overflowed;
+
+    /**
+     * Replaces the given tokenizer's number state with a new exact
+     * number state, for every character the number state is entered
+     * on.
+     *
+     * @param t the tokenizer to change
+     * @return the new state
+     */
+    public static ExactNumberState install(Tokenizer t) {
+        ExactNumberState exact = new ExactNumberState();
+        NumberState old = t.numberState;
+        for (int i = 0; i < t.characterState.length; i++) {
+            if (t.characterState[i] == old) {
+                t.characterState[i] = exact;
+            }
+        }
+        t.numberState = exact;
+        return exact;
+    }
+
+    /**
+     * Return a number token from a reader, or a symbol token if what
+     * began like a number is only a minus sign or a point.
+     *
+     * @return a number token from a reader
+     */
+    @Override
+    public Token nextToken(PushbackReader r, int cin, Tokenizer t) throws IOException {
+        length = 0;
+        unscaled = 0;
+        scale = 0;
+        overflowed = false;
+        boolean negative = false;
+        boolean digits = false;
+        int c = cin;
+        if (c == '-') {
+            negative = true;
+            append(c);
+            c = r.read();
+        }
+        while ('0' <= c && c <= '9') {
+            digit(c);
+            digits = true;
+            c = r.read();
+        }
+        if (c == '.') {
+            int next = r.read();
+            if ('0' <= next && next <= '9') {
+                append(c);
+                c = next;
+                while ('0' <= c && c <= '9') {
+                    digit(c);
+                    scale++;
+                    digits = true;
+                    c = r.read();
+                }
+            } else {
+                if (next != -1) {
+                    r.unread(next);
+                }
+                // leave the point for whoever reads next
+            }
+        }
+        if (c != -1) {
+            r.unread(c);
+        }
+        if (!digits) {
+            // a lone '-' or '.'; the point, if any, has been unread
+            if (negative) {
+                return t.symbolState().nextToken(r, '-', t);
+            }
+            return t.symbolState().nextToken(r, r.read(), t);
+        }
+        if (overflowed) {
+            return new DecimalToken(new BigDecimal(text, 0, length));
+        }
+        return new DecimalToken(negative ? -unscaled : unscaled, scale);
+    }
+
+    /*
+     * Take one more digit into the unscaled value, unless it has
+     * already overflowed.
+     */
+    protected void digit(int c) {
+        append(c);
+        int d = c - '0';
+        if (!overflowed) {
+            if (unscaled > LIMIT || (unscaled == LIMIT && d > Long.MAX_VALUE % 10)) {
+                overflowed = true;
+            } else {
+                unscaled = unscaled * 10 + d;
+            }
+        }
+    }
+
+    /*
+     * Add a character to the text of the number.
+     */
+    protected void append(int c) {
+        if (length == text.length) {
+            char[] bigger = new char[length * 2];
+            System.arraycopy(text, 0, bigger, 0, length);
+            text = bigger;
+        }
+        text[length++] = (char) c;
+    }
+}
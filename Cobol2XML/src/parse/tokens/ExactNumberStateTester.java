@@ -0,0 +1,173 @@
+/*
+ * @(#)ExactNumberStateTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+/**
+ * An ExactNumberStateTester checks that an
+ * <code>ExactNumberState</code> reads COBOL numeric literals exactly,
+ * and that <code>DecimalToken</code>s compare exactly.
+ * <p>
+ * It reads literals with as many digits as a <code>long</code>
+ * holds, and more; fractions no double holds exactly; negative
+ * numbers; and numbers followed by a full stop. It checks that two
+ * literals which differ only beyond a double's precision are
+ * different tokens, that trailing zeros after the point make no
+ * difference, and that a tokenizer with the state installed makes
+ * decimal tokens.
+ * <p>
+ * The tester exits with status 1 if any check fails.
+ */
+public class ExactNumberStateTester {
+
+    protected long checks;
+    protected long failures;
+
+    /*
+     * Record a check, reporting it if it failed.
+     */
+    protected void expect(boolean ok, String message) {
+        checks++;
+        if (!ok) {
+            System.out.println("FAILS: " + message);
+            failures++;
+        }
+    }
+
+    /*
+     * Read one number from the start of a string, and return it.
+     */
+    protected static DecimalToken read(String s) throws IOException {
+        PushbackReader r = new PushbackReader(new StringReader(s.substring(1)), 4);
+        return (DecimalToken) new ExactNumberState().nextToken(r, s.charAt(0), new Tokenizer());
+    }
+
+    /**
+     * Reads a literal, and checks that its exact value is the one
+     * given, and whether it fits a long.
+     *
+     * @param literal the literal to read
+     * @param compact true, if the literal's digits fit a long
+     * @throws IOException if the literal cannot be read
+     */
+    public void checkValue(String literal, boolean compact) throws IOException {
+        DecimalToken d = read(literal);
+        expect(d.decimalValue().compareTo(new BigDecimal(literal)) == 0,
+                literal + " reads as " + d.decimalValue());
+        expect(d.isCompact() == compact, literal + (compact ? " is not" : " is") + " compact");
+        expect(d.nval() == new BigDecimal(literal).doubleValue(), literal + " has the double value " + d.nval());
+    }
+
+    /**
+     * Checks that two literals read as equal tokens, or as different
+     * ones.
+     *
+     * @param a a literal
+     * @param b another literal
+     * @param equal true, if the literals have the same value
+     * @throws IOException if a literal cannot be read
+     */
+    public void checkEquality(String a, String b, boolean equal) throws IOException {
+        DecimalToken x = read(a);
+        DecimalToken y = read(b);
+        expect(x.equals(y) == equal && y.equals(x) == equal,
+                a + (equal ? " differs from " : " equals ") + b);
+        if (equal) {
+            expect(x.hashCode() == y.hashCode(), a + " and " + b + " hash differently");
+        }
+    }
+
+    /**
+     * Checks that a number followed by a full stop leaves the stop to
+     * be read next.
+     *
+     * @throws IOException if the text cannot be read
+     */
+    public void checkFullStop() throws IOException {
+        PushbackReader r = new PushbackReader(new StringReader("2. X"), 4);
+        Token t = new ExactNumberState().nextToken(r, '1', new Tokenizer());
+        expect(t.equals(new DecimalToken(12, 0)), "\"12.\" reads as " + t);
+        expect(r.read() == '.', "the full stop after 12 was taken");
+    }
+
+    /**
+     * Checks that a tokenizer with an exact number state installed
+     * makes decimal tokens of its numbers.
+     *
+     * @throws IOException if the text cannot be read
+     */
+    public void checkInstall() throws IOException {
+        Tokenizer t = new Tokenizer();
+        ExactNumberState exact = ExactNumberState.install(t);
+        expect(t.numberState() == exact, "install() left the old number state");
+        t.setString("VALUE 0.1 -3.250.");
+        t.nextToken();
+        Token a = t.nextToken();
+        Token b = t.nextToken();
+        Token stop = t.nextToken();
+        expect(a instanceof DecimalToken && ((DecimalToken) a).decimalValue().equals(new BigDecimal("0.1")),
+                "the tokenizer read 0.1 as " + a);
+        expect(b instanceof DecimalToken && b.equals(new DecimalToken(-325, 2)),
+                "the tokenizer read -3.250 as " + b);
+        expect(stop.isSymbol() && ".".equals(stop.sval()), "the tokenizer read the full stop as " + stop);
+    }
+
+    /**
+     * Checks each case.
+     *
+     * @param args ignored
+     * @throws IOException if a literal cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        ExactNumberStateTester t = new ExactNumberStateTester();
+        t.checkValue("0", true);
+        t.checkValue("0.1", true);
+        t.checkValue("12.50", true);
+        t.checkValue("-7.005", true);
+        t.checkValue("123456789012345678", true);
+        t.checkValue("9223372036854775807", true);
+        t.checkValue("9223372036854775808", false);
+        t.checkValue("-9223372036854775809", false);
+        t.checkValue("0.000000000000000000001", true);
+        t.checkValue("1234567890123456789012345.6789", false);
+
+        t.checkEquality("12.5", "12.50", true);
+        t.checkEquality("1", "1.000", true);
+        t.checkEquality("0.1", "0.10000000000000000001", false);
+        t.checkEquality("12345678901234567.1", "12345678901234567.2", false);
+        t.checkEquality("99999999999999999999.5", "99999999999999999999.50", true);
+        t.checkEquality("99999999999999999999.5", "99999999999999999999.6", false);
+        t.checkEquality("-1", "1", false);
+
+        t.expect(new DecimalToken(25, 1).equals(new Token(2.5)), "2.5 differs from the double 2.5");
+        t.checkFullStop();
+        t.checkInstall();
+        System.out.println(t.checks + " checks, " + t.failures + " failures");
+        if (t.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * @(#)FirstSet.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A FirstSet describes the tokens a parser can begin a match with.
+ * <p>
+ * The set holds the text of the literals and symbols that can come
+ * first, compared without regard to case, and flags for the token
+ * types a parser will take whatever their text. A set is
+ * <i>nullable</i> if its parser can match without consuming a
+ * token, and <i>open</i> if nothing is known about its first token,
+ * as for a terminal this package does not recognize.
+ */
+public class FirstSet {
+
+    protected Set<String> keys = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+    protected boolean anyWord;
+    protected boolean anyNumber;
+    protected boolean anyQuoted;
+    protected boolean open;
+    protected boolean nullable;
+
+    /**
+     * Returns a set that admits any first token.
+     *
+     * @return a set that admits any first token
+     */
+    public static FirstSet open() {
+        FirstSet f = new FirstSet();
+        f.open = true;
+        return f;
+    }
+
+    /**
+     * Adds the tokens of another set to this one. Nullability is left
+     * for the caller to decide.
+     *
+     * @param f the set to add
+     */
+    public void addTokensOf(FirstSet f) {
+        keys.addAll(f.keys);
+        anyWord |= f.anyWord;
+        anyNumber |= f.anyNumber;
+        anyQuoted |= f.anyQuoted;
+        open |= f.open;
+    }
+
+    /**
+     * Returns the literal and symbol text that can come first.
+     *
+     * @return the literal and symbol text that can come first
+     */
+    public Set<String> keys() {
+        return keys;
+    }
+
+    /**
+     * Returns true if any number can come first.
+     *
+     * @return true, if any number can come first
+     */
+    public boolean isAnyNumber() {
+        return anyNumber;
+    }
+
+    /**
+     * Returns true if any quoted string can come first.
+     *
+     * @return true, if any quoted string can come first
+     */
+    public boolean isAnyQuoted() {
+        return anyQuoted;
+    }
+
+    /**
+     * Returns true if any word can come first.
+     *
+     * @return true, if any word can come first
+     */
+    public boolean isAnyWord() {
+        return anyWord;
+    }
+
+    /**
+     * Returns true if the parser can match without consuming a token.
+     *
+     * @return true, if the parser can match without consuming a token
+     */
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    /**
+     * Returns true if any token at all can come first.
+     *
+     * @return true, if any token at all can come first
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns a textual description of this set.
+     *
+     * @return a textual description of this set
+     */
+    @Override
+    public String toString() {
+        ArrayList<String> parts = new ArrayList<String>(keys);
+        if (anyWord) {
+            parts.add("Word");
+        }
+        if (anyNumber) {
+            parts.add("Num");
+        }
+        if (anyQuoted) {
+            parts.add("QuotedString");
+        }
+        if (open) {
+            parts.add("any");
+        }
+        if (nullable) {
+            parts.add("empty");
+        }
+        return "{" + String.join(", ", parts) + "}";
+    }
+}
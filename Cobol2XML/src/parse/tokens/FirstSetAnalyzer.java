@@ -0,0 +1,135 @@
+/*
+ * @(#)FirstSetAnalyzer.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import parse.Alternation;
+import parse.Assembly;
+import parse.Empty;
+import parse.Parser;
+import parse.ParserVisitor;
+import parse.Repetition;
+import parse.Sequence;
+import parse.Terminal;
+
+/**
+ * A FirstSetAnalyzer computes the FIRST set of each parser in a
+ * grammar: the tokens the parser can begin a match with.
+ * <p>
+ * The sets are computed once per parser and remembered. Where a
+ * grammar refers to a parser recursively, the inner reference is
+ * taken to admit any token, so a set may be larger than it need be
+ * but never smaller.
+ */
+public class FirstSetAnalyzer extends ParserVisitor {
+
+    protected IdentityHashMap<Parser, FirstSet> sets = new IdentityHashMap<Parser, FirstSet>();
+    protected FirstSet result;
+
+    /**
+     * Returns the FIRST set of the given parser.
+     *
+     * @param p a parser
+     * @return the tokens the parser can begin a match with
+     */
+    public FirstSet first(Parser p) {
+        FirstSet f = sets.get(p);
+        if (f != null) {
+            return f;
+        }
+        FirstSet inProgress = FirstSet.open();
+        inProgress.nullable = true;
+        sets.put(p, inProgress);
+        p.accept(this);
+        f = result;
+        sets.put(p, f);
+        return f;
+    }
+
+    public void visitAlternation(Alternation a, ArrayList<Assembly> visited) {
+        FirstSet f = new FirstSet();
+        for (Parser p : a.getSubparsers()) {
+            FirstSet fp = first(p);
+            f.addTokensOf(fp);
+            f.nullable |= fp.nullable;
+        }
+        result = f;
+    }
+
+    public void visitEmpty(Empty e, ArrayList<Assembly> visited) {
+        FirstSet f = new FirstSet();
+        f.nullable = true;
+        result = f;
+    }
+
+    public void visitRepetition(Repetition r, ArrayList<Assembly> visited) {
+        FirstSet f = new FirstSet();
+        f.addTokensOf(first(r.getSubparser()));
+        f.nullable = true;
+        result = f;
+    }
+
+    public void visitSequence(Sequence s, ArrayList<Assembly> visited) {
+        FirstSet f = new FirstSet();
+        f.nullable = true;
+        for (Parser p : s.getSubparsers()) {
+            FirstSet fp = first(p);
+            f.addTokensOf(fp);
+            if (!fp.nullable) {
+                f.nullable = false;
+                break;
+            }
+        }
+        result = f;
+    }
+
+    public void visitTerminal(Terminal t, ArrayList<Assembly> visited) {
+        FirstSet f = new FirstSet();
+        if (t instanceof Literal) {
+            addToken(f, ((Literal) t).literal);
+        } else if (t instanceof Symbol) {
+            addToken(f, ((Symbol) t).symbol);
+        } else if (t instanceof Word) {
+            f.anyWord = true;
+        } else if (t instanceof Num) {
+            f.anyNumber = true;
+        } else if (t instanceof QuotedString) {
+            f.anyQuoted = true;
+        } else {
+            f.open = true;
+        }
+        result = f;
+    }
+
+    /*
+     * Add the token a literal or symbol matches.
+     */
+    protected void addToken(FirstSet f, Token tok) {
+        if (tok.isNumber()) {
+            f.anyNumber = true;
+        } else {
+            f.keys.add(tok.sval());
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * @(#)FixedFormatReader.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A FixedFormatReader reads COBOL source in fixed format and passes
+ * on only the program text, a logical line at a time.
+ * <p>
+ * In fixed format, columns 1-6 of each line are the sequence area,
+ * column 7 is the indicator, columns 8-72 hold the program text, and
+ * columns 73-80 are for identification. This reader drops the
+ * sequence and identification areas and acts on the indicator:
+ * <ul>
+ * <li><code>*</code> and <code>/</code> mark comment lines, which are
+ * passed to a <code>CommentListener</code>, if there is one, instead
+ * of to the tokenizer.
+ * <li><code>D</code> marks a debugging line, which is dropped unless
+ * debugging lines are asked for.
+ * <li><code>-</code> marks a continuation line, which is joined to the
+ * line before it. A continued word resumes at the first non-blank
+ * character; a continued literal resumes after the quote that starts
+ * the continuation, with the literal running on to column 72 of the
+ * line before.
+ * </ul>
+ * A floating comment, from <code>*&gt;</code> outside a literal to the
+ * end of the line, is dropped as well.
+ * <p>
+ * Lines are assembled in reused character arrays and read straight out
+ * of them, so no strings are made as the source goes through.
+ */
+public class FixedFormatReader extends Reader {
+
+    /**
+     * Receives the comment lines of a source.
+     */
+    public interface CommentListener {
+
+        /**
+         * Receives the text of a comment line, from column 8 on. The
+         * array is reused, so copy any text that is to be kept.
+         *
+         * @param text an array holding the comment's text
+         * @param offset the start of the text in the array
+         * @param length the length of the text
+         * @param lineNumber the line's number in the source, from 1
+         */
+        void comment(char[] text, int offset, int length, int lineNumber);
+    }
+
+    /*
+     * The columns, counted from 0, of the indicator and of the end of
+     * the program text
+     */
+    protected static final int INDICATOR = 6;
+    protected static final int TEXT_END = 72;
+
+    protected Reader in;
+    protected CommentListener listener;
+    protected boolean includeDebugLines;
+
+    /*
+     * The physical line most recently read, not yet used
+     */
+    protected char[] line = new char[128];
+    protected int lineLength;
+    protected boolean linePending;
+    protected int lineNumber;
+    protected boolean eof;
+    protected int pushedBack = -1;
+
+    /*
+     * The logical line being built, or being read out
+     */
+    protected char[] logical = new char[256];
+    protected int logicalLength;
+    protected boolean haveLogical;
+    protected int lastEnd;
+    protected int readPos = -1;
+
+    /*
+     * The quote that opens a literal left unclosed at the end of the
+     * logical line, or 0 if there is none; carried forward as each
+     * line is appended
+     */
+    protected char openQuote;
+
+    /**
+     * Constructs a reader of the program text of the given fixed-format
+     * source.
+     *
+     * @param in the fixed-format source
+     */
+    public FixedFormatReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Sets the listener to pass comment lines to; null drops them.
+     *
+     * @param listener the listener to receive comment lines
+     * @return this
+     */
+    public FixedFormatReader setCommentListener(CommentListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Sets whether to keep debugging lines, marked <code>D</code> in
+     * column 7, as program text. They are dropped by default.
+     *
+     * @param includeDebugLines true, to keep debugging lines
+     * @return this
+     */
+    public FixedFormatReader setIncludeDebugLines(boolean includeDebugLines) {
+        this.includeDebugLines = includeDebugLines;
+        return this;
+    }
+
+    /**
+     * Returns the number of physical lines read so far.
+     *
+     * @return the number of physical lines read so far
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Reads a single character of program text.
+     *
+     * @return the character read, or -1 at the end of the source
+     * @throws IOException if the underlying reader fails
+     */
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return readPos < logicalLength ? logical[readPos++] : nextLine();
+    }
+
+    /**
+     * Reads program text into part of an array.
+     *
+     * @param cbuf the array to read into
+     * @param off the place in the array to start at
+     * @param len the most characters to read
+     * @return the number of characters read, or -1 at the end of the
+     *         source
+     * @throws IOException if the underlying reader fails
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < len && fill()) {
+            if (readPos < logicalLength) {
+                int k = Math.min(len - n, logicalLength - readPos);
+                System.arraycopy(logical, readPos, cbuf, off + n, k);
+                readPos += k;
+                n += k;
+            } else {
+                cbuf[off + n++] = (char) nextLine();
+            }
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if the underlying reader fails
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /*
+     * Make sure a logical line is ready to be read out, building the
+     * next one if need be. Returns false at the end of the source.
+     */
+    protected boolean fill() throws IOException {
+        return readPos >= 0 || buildLogicalLine();
+    }
+
+    /*
+     * Finish reading out a logical line, returning its line end.
+     */
+    protected int nextLine() {
+        readPos = -1;
+        logicalLength = 0;
+        openQuote = 0;
+        haveLogical = false;
+        return '\n';
+    }
+
+    /*
+     * Build the next logical line from physical lines, stopping at the
+     * first line that is not a comment or a continuation. Returns false
+     * if the source holds no more program text.
+     */
+    protected boolean buildLogicalLine() throws IOException {
+        while (true) {
+            if (!linePending && !readLine()) {
+                if (haveLogical) {
+                    readPos = 0;
+                    return true;
+                }
+                return false;
+            }
+            char indicator = lineLength > INDICATOR ? line[INDICATOR] : ' ';
+            if (indicator == '*' || indicator == '/') {
+                if (listener != null) {
+                    int start = Math.min(lineLength, INDICATOR + 1);
+                    listener.comment(line, start, lineLength - start, lineNumber);
+                }
+                linePending = false;
+            } else if ((indicator == 'D' || indicator == 'd') && !includeDebugLines) {
+                linePending = false;
+            } else if (indicator == '-' && haveLogical) {
+                continueLogicalLine();
+                linePending = false;
+            } else if (haveLogical) {
+                readPos = 0;
+                return true;
+            } else {
+                logicalLength = 0;
+                openQuote = 0;
+                appendText(INDICATOR + 1, textEnd());
+                haveLogical = true;
+                linePending = false;
+            }
+        }
+    }
+
+    /*
+     * Join the pending continuation line to the logical line.
+     */
+    protected void continueLogicalLine() {
+        int from = INDICATOR + 1;
+        int end = textEnd();
+        while (from < end && line[from] == ' ') {
+            from++;
+        }
+        if (openQuote != 0) {
+            // the literal runs on to column 72 of the line before
+            int pad = TEXT_END - lastEnd;
+            ensureLogical(logicalLength + pad);
+            for (int i = 0; i < pad; i++) {
+                logical[logicalLength++] = ' ';
+            }
+            if (from < end && (line[from] == '"' || line[from] == '\'')) {
+                from++;
+            }
+        } else {
+            while (logicalLength > 0 && logical[logicalLength - 1] == ' ') {
+                logicalLength--;
+            }
+        }
+        appendText(from, end);
+    }
+
+    /*
+     * Return the end of the text area of the pending line.
+     */
+    protected int textEnd() {
+        return Math.min(lineLength, TEXT_END);
+    }
+
+    /*
+     * Append text from the pending line to the logical line, leaving out
+     * any floating comment, and note whether a literal is left open.
+     */
+    protected void appendText(int from, int end) {
+        lastEnd = Math.max(end, INDICATOR + 1);
+        char quote = openQuote;
+        for (int i = from; i < end; i++) {
+            char c = line[i];
+            if (quote == 0 && c == '*' && i + 1 < end && line[i + 1] == '>') {
+                end = i;
+                break;
+            }
+            if (quote == 0 && (c == '"' || c == '\'')) {
+                quote = c;
+            } else if (c == quote) {
+                quote = 0;
+            }
+        }
+        if (end > from) {
+            ensureLogical(logicalLength + end - from);
+            System.arraycopy(line, from, logical, logicalLength, end - from);
+            logicalLength += end - from;
+        }
+        openQuote = quote;
+    }
+
+    /*
+     * Read the next physical line into the line array, without its line
+     * end. Returns false at the end of the source.
+     */
+    protected boolean readLine() throws IOException {
+        if (eof) {
+            return false;
+        }
+        lineLength = 0;
+        int c;
+        while ((c = readChar()) >= 0) {
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                c = readChar();
+                if (c != '\n' && c >= 0) {
+                    // a lone carriage return ends the line; keep what follows
+                    pushedBack = c;
+                }
+                break;
+            }
+            if (lineLength == line.length) {
+                line = grow(line, lineLength + 1);
+            }
+            line[lineLength++] = (char) c;
+        }
+        if (c < 0) {
+            eof = true;
+            if (lineLength == 0) {
+                return false;
+            }
+        }
+        lineNumber++;
+        linePending = true;
+        return true;
+    }
+
+    /*
+     * Read a character, taking first any read past a lone carriage
+     * return.
+     */
+    private int readChar() throws IOException {
+        int c = pushedBack;
+        if (c >= 0) {
+            pushedBack = -1;
+            return c;
+        }
+        return in.read();
+    }
+
+    private void ensureLogical(int capacity) {
+        if (capacity > logical.length) {
+            logical = grow(logical, capacity);
+        }
+    }
+
+    private static char[] grow(char[] a, int capacity) {
+        char[] b = new char[Math.max(capacity, a.length * 2)];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+}
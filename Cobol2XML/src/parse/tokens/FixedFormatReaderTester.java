@@ -0,0 +1,198 @@
+/*
+ * @(#)FixedFormatReaderTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+/**
+ * A FixedFormatReaderTester checks the program text a
+ * <code>FixedFormatReader</code> makes of small fixed-format sources:
+ * continued words and literals, the padding of a literal left open to
+ * column 72, floating comments inside and outside literals, comment
+ * and debugging lines, and lines ended by a lone carriage return.
+ * <p>
+ * Each source is read both a character at a time and in blocks, and
+ * both must give the expected text. The tester exits with status 1 if
+ * any source reads differently.
+ */
+public class FixedFormatReaderTester {
+
+    protected long checks;
+    protected long failures;
+
+    /*
+     * Return a fixed-format line with the given indicator and program
+     * text, which starts in column 8.
+     */
+    protected static String card(char indicator, String text) {
+        return "000100" + indicator + text;
+    }
+
+    /*
+     * Return the given text padded with blanks to column 72, followed by
+     * an identification area.
+     */
+    protected static String identified(String text) {
+        return text + blanks(65 - text.length()) + "PROG0001";
+    }
+
+    /*
+     * Return a run of blanks.
+     */
+    protected static String blanks(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Return the blanks that pad a literal left open at the end of the
+     * given text to column 72.
+     */
+    protected static String padding(String text) {
+        return blanks(65 - text.length());
+    }
+
+    /*
+     * Read all the program text of a source a character at a time, or
+     * in blocks.
+     */
+    protected static String read(FixedFormatReader r, boolean blocks) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        if (blocks) {
+            char[] buf = new char[7];
+            int n;
+            while ((n = r.read(buf, 0, buf.length)) > 0) {
+                sb.append(buf, 0, n);
+            }
+        } else {
+            int c;
+            while ((c = r.read()) >= 0) {
+                sb.append((char) c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a source both ways, and returns true if each gives the
+     * expected program text.
+     *
+     * @param name a name for the case
+     * @param source the fixed-format source
+     * @param debug true, to keep debugging lines
+     * @param expected the program text expected
+     * @return true, if the source reads as expected
+     * @throws IOException if the source cannot be read
+     */
+    public boolean check(String name, String source, boolean debug, String expected) throws IOException {
+        boolean ok = true;
+        for (int k = 0; k < 2; k++) {
+            checks++;
+            FixedFormatReader r = new FixedFormatReader(new StringReader(source)).setIncludeDebugLines(debug);
+            String actual = read(r, k == 1);
+            if (!actual.equals(expected)) {
+                ok = fail(name + (k == 1 ? " (blocks)" : "") + "\n    expected: [" + expected + "]\n    actual:   ["
+                        + actual + "]");
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Checks that comment lines go to the listener, with their line
+     * numbers, and not to the program text.
+     *
+     * @return true, if the comments were passed on
+     * @throws IOException if the source cannot be read
+     */
+    public boolean checkComments() throws IOException {
+        checks++;
+        final ArrayList<String> comments = new ArrayList<String>();
+        String source = card('*', "FIRST") + "\n" + card(' ', "A.") + "\n" + card('/', "PAGE") + "\n";
+        FixedFormatReader r = new FixedFormatReader(new StringReader(source))
+                .setCommentListener(new FixedFormatReader.CommentListener() {
+                    public void comment(char[] text, int offset, int length, int lineNumber) {
+                        comments.add(lineNumber + ":" + new String(text, offset, length));
+                    }
+                });
+        String text = read(r, false);
+        if (!text.equals("A.\n") || !comments.toString().equals("[1:FIRST, 3:PAGE]")) {
+            return fail("comments: text [" + text + "], comments " + comments);
+        }
+        return true;
+    }
+
+    /*
+     * Report a failure, and return false.
+     */
+    protected boolean fail(String message) {
+        System.out.println("FAILS: " + message);
+        failures++;
+        return false;
+    }
+
+    /**
+     * Checks each case.
+     *
+     * @param args ignored
+     * @throws IOException if a source cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        FixedFormatReaderTester t = new FixedFormatReaderTester();
+        t.check("areas", card(' ', identified("MOVE A TO B.")) + "\n", false,
+                "MOVE A TO B." + blanks(53) + "\n");
+        t.check("word continuation", card(' ', "    MOVE CUST-NA   ") + "\n" + card('-', "    ME TO B.") + "\n", false,
+                "    MOVE CUST-NAME TO B.\n");
+        String open = "    MOVE 'ABC";
+        t.check("literal continuation", card(' ', open) + "\n" + card('-', "    'DEF' TO X.") + "\n", false,
+                open + padding(open) + "DEF' TO X.\n");
+        String twice = "    DISPLAY \"AB";
+        t.check("literal continued twice", card(' ', twice) + "\n" + card('-', "    \"CD") + "\n"
+                + card('-', "    \"EF\".") + "\n", false,
+                twice + padding(twice) + "CD" + padding("    \"CD") + "EF\".\n");
+        t.check("floating comment", card(' ', "    MOVE A TO B. *> a note") + "\n", false,
+                "    MOVE A TO B. \n");
+        t.check("floating comment in literal", card(' ', "    DISPLAY '*> not a note'.") + "\n", false,
+                "    DISPLAY '*> not a note'.\n");
+        String ab = "    DISPLAY 'AB";
+        t.check("floating comment in continued literal", card(' ', ab) + "\n"
+                + card('-', "    '*>CD'. *> a note") + "\n", false,
+                ab + padding(ab) + "*>CD'. \n");
+        String lines = card(' ', "A.") + "\n" + card('D', "DISPLAY X.") + "\n" + card(' ', "B.") + "\n";
+        t.check("debugging line dropped", lines, false, "A.\nB.\n");
+        t.check("debugging line kept", lines, true, "A.\nDISPLAY X.\nB.\n");
+        t.check("lone carriage returns", card(' ', "A.") + "\r" + card(' ', "B.") + "\r\n" + card(' ', "C.") + "\r",
+                false, "A.\nB.\nC.\n");
+        t.check("continuation after carriage return", card(' ', "MOVE X") + "\r" + card('-', "    Y TO Z."), false,
+                "MOVE XY TO Z.\n");
+        t.checkComments();
+        System.out.println(t.checks + " checks, " + t.failures + " failures");
+        if (t.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
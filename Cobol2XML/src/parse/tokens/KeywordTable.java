@@ -0,0 +1,257 @@
+/*
+ * @(#)KeywordTable.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.util.Arrays;
+
+/**
+ * A KeywordTable gives each keyword a small positive id, the same
+ * for every spelling of the word that differs only in case, so that
+ * a word can be compared with a keyword by comparing ints.
+ * <p>
+ * Keywords are added with <code>intern()</code>, as
+ * <code>CaselessLiteral</code>s are made; words are looked up with
+ * <code>lookup()</code>, which allocates nothing. A
+ * <code>Token</code>, or a row of a
+ * <code>PackedTokenString</code>, looks its word up the first time
+ * it is asked for its id and keeps the answer. Because keywords may
+ * be added after a word was found not to be one, the table has a
+ * version that changes whenever a keyword is added, and a word that
+ * was not a keyword is looked up again if the version has changed.
+ * <p>
+ * Ids are never reused or withdrawn. Lookups read an immutable
+ * snapshot of the table, so they need no lock; additions, which are
+ * rare, replace the snapshot under one.
+ */
+public class KeywordTable {
+
+    /**
+     * The id of a word that is not a keyword.
+     */
+    public static final int NONE = 0;
+
+    private static final KeywordTable SHARED = new KeywordTable();
+
+    private volatile Snapshot snapshot = new Snapshot(new String[16], new int[16], 0, 0);
+
+    /**
+     * Returns the table that <code>CaselessLiteral</code> and
+     * <code>Token.keywordId()</code> share.
+     *
+     * @return the shared keyword table
+     */
+    public static KeywordTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the id of the given keyword, adding it to the table if
+     * it is not there yet.
+     *
+     * @param word a keyword
+     * @return the keyword's id, which is never NONE
+     */
+    public synchronized int intern(String word) {
+        Snapshot s = snapshot;
+        int id = s.lookup(word, 0, word.length());
+        if (id != NONE) {
+            return id;
+        }
+        id = s.count + 1;
+        String[] keys = s.keys;
+        int[] ids = s.ids;
+        if ((s.count + 1) * 2 > keys.length) {
+            keys = new String[keys.length * 2];
+            ids = new int[keys.length];
+            for (int i = 0; i < s.keys.length; i++) {
+                if (s.keys[i] != null) {
+                    put(keys, ids, s.keys[i], s.ids[i]);
+                }
+            }
+        } else {
+            keys = Arrays.copyOf(keys, keys.length);
+            ids = Arrays.copyOf(ids, ids.length);
+        }
+        put(keys, ids, word, id);
+        snapshot = new Snapshot(keys, ids, s.count + 1, s.version + 1);
+        return id;
+    }
+
+    /**
+     * Returns the id of the given word, or NONE if it is not a
+     * keyword.
+     *
+     * @param word a word
+     * @return the word's keyword id, or NONE
+     */
+    public int lookup(String word) {
+        return snapshot.lookup(word, 0, word.length());
+    }
+
+    /**
+     * Returns the id of the word held in part of an array, or NONE if
+     * it is not a keyword.
+     *
+     * @param chars an array holding the word
+     * @param offset the start of the word in the array
+     * @param len the length of the word
+     * @return the word's keyword id, or NONE
+     */
+    public int lookup(char[] chars, int offset, int len) {
+        return snapshot.lookup(chars, offset, len);
+    }
+
+    /**
+     * Returns the number of keywords in this table.
+     *
+     * @return the number of keywords in this table
+     */
+    public int size() {
+        return snapshot.count;
+    }
+
+    /**
+     * Returns the version of this table, which changes whenever a
+     * keyword is added.
+     *
+     * @return the version of this table
+     */
+    public int version() {
+        return snapshot.version;
+    }
+
+    /*
+     * Return what a word keeps once it has been looked up: its id if
+     * it is a keyword, or else a negative stamp of the version of the
+     * table it was not found in.
+     */
+    static int stamp(int id, int version) {
+        return id != NONE ? id : -version - 1;
+    }
+
+    /*
+     * Return true if a stamp says its word was not a keyword in the
+     * given version of the table.
+     */
+    static boolean missedIn(int stamp, int version) {
+        return stamp == -version - 1;
+    }
+
+    /*
+     * Fold a character as comparisons without regard to case do.
+     */
+    static char fold(char c) {
+        return Character.toUpperCase(c);
+    }
+
+    private static void put(String[] keys, int[] ids, String word, int id) {
+        int mask = keys.length - 1;
+        int i = Snapshot.hash(word, 0, word.length()) & mask;
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = word;
+        ids[i] = id;
+    }
+
+    /*
+     * An open-addressed hash of the keywords, never changed once
+     * published.
+     */
+    private static final class Snapshot {
+        final String[] keys;
+        final int[] ids;
+        final int count;
+        final int version;
+
+        Snapshot(String[] keys, int[] ids, int count, int version) {
+            this.keys = keys;
+            this.ids = ids;
+            this.count = count;
+            this.version = version;
+        }
+
+        static int hash(CharSequence s, int offset, int len) {
+            int h = 0;
+            for (int i = 0; i < len; i++) {
+                h = 31 * h + fold(s.charAt(offset + i));
+            }
+            return h ^ (h >>> 16);
+        }
+
+        static int hash(char[] chars, int offset, int len) {
+            int h = 0;
+            for (int i = 0; i < len; i++) {
+                h = 31 * h + fold(chars[offset + i]);
+            }
+            return h ^ (h >>> 16);
+        }
+
+        int lookup(String word, int offset, int len) {
+            int mask = keys.length - 1;
+            for (int i = hash(word, offset, len) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (matches(keys[i], word, offset, len)) {
+                    return ids[i];
+                }
+            }
+            return NONE;
+        }
+
+        int lookup(char[] chars, int offset, int len) {
+            int mask = keys.length - 1;
+            for (int i = hash(chars, offset, len) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (matches(keys[i], chars, offset, len)) {
+                    return ids[i];
+                }
+            }
+            return NONE;
+        }
+
+        static boolean matches(String k, String word, int offset, int len) {
+            if (k.length() != len) {
+                return false;
+            }
+            for (int j = 0; j < len; j++) {
+                char c1 = k.charAt(j);
+                char c2 = word.charAt(offset + j);
+                if (c1 != c2 && fold(c1) != fold(c2)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static boolean matches(String k, char[] chars, int offset, int len) {
+            if (k.length() != len) {
+                return false;
+            }
+            for (int j = 0; j < len; j++) {
+                char c1 = k.charAt(j);
+                char c2 = chars[offset + j];
+                if (c1 != c2 && fold(c1) != fold(c2)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * @(#)KeywordTableTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import parse.Assembly;
+
+/**
+ * A KeywordTableTester checks that a <code>KeywordTable</code> gives
+ * each keyword one id whatever its case, and that a token which found
+ * its word was not a keyword looks again once the table has changed.
+ * <p>
+ * A token keeps the answer to its first lookup, stamped with the
+ * table's version. The tester asks plain tokens, lexeme tokens and
+ * the rows of a packed token string for their ids before and after
+ * their words become keywords, and checks that a
+ * <code>CaselessLiteral</code> made after the tokens still matches
+ * them.
+ * <p>
+ * The tester exits with status 1 if any check fails.
+ */
+public class KeywordTableTester {
+
+    protected long checks;
+    protected long failures;
+
+    /*
+     * Record a check, reporting it if it failed.
+     */
+    protected void expect(boolean ok, String message) {
+        checks++;
+        if (!ok) {
+            System.out.println("FAILS: " + message);
+            failures++;
+        }
+    }
+
+    /**
+     * Checks the ids and versions of a table of its own.
+     */
+    public void checkTable() {
+        KeywordTable table = new KeywordTable();
+        int v0 = table.version();
+        int move = table.intern("MOVE");
+        expect(move != KeywordTable.NONE, "an interned word has no id");
+        expect(table.version() != v0, "interning a word left the version alone");
+        int v1 = table.version();
+        expect(table.intern("move") == move, "\"move\" and \"MOVE\" have different ids");
+        expect(table.version() == v1, "interning a keyword again changed the version");
+        expect(table.lookup("Move") == move, "looking up \"Move\" missed");
+        char[] chars = "xxMoVexx".toCharArray();
+        expect(table.lookup(chars, 2, 4) == move, "looking up characters missed");
+        expect(table.lookup(chars, 2, 3) == KeywordTable.NONE, "\"MoV\" is a keyword");
+        expect(table.lookup("TO") == KeywordTable.NONE, "\"TO\" is a keyword before it is interned");
+
+        // grow the table well past its first size
+        List<String> words = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            words.add("WORD-" + i);
+        }
+        int[] ids = new int[words.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = table.intern(words.get(i));
+        }
+        boolean same = table.lookup("move") == move && table.size() == words.size() + 1;
+        for (int i = 0; i < ids.length; i++) {
+            same &= table.lookup(words.get(i).toLowerCase()) == ids[i];
+            same &= i == 0 || ids[i] != ids[i - 1];
+        }
+        expect(same, "ids changed or clashed as the table grew");
+    }
+
+    /**
+     * Checks that tokens, and the rows of a packed token string, look
+     * a word up again after it becomes a keyword of the shared table.
+     */
+    public void checkInvalidation() {
+        // a word no other grammar has made a keyword
+        String word = "KEYWORD-TABLE-TESTER-" + System.nanoTime();
+        Token plain = new Token(word.toLowerCase());
+        char[] chars = (" " + word + " ").toCharArray();
+        Token lexeme = new LexemeToken(Token.TT_WORD, chars, 1, word.length());
+        PackedTokenString packed = new PackedTokenString();
+        packed.add(new Token(word));
+        Token number = new Token(1);
+
+        expect(plain.keywordId() == KeywordTable.NONE, "a new word is a keyword");
+        expect(lexeme.keywordId() == KeywordTable.NONE, "a new lexeme is a keyword");
+        expect(packed.keywordId(0) == KeywordTable.NONE, "a new packed word is a keyword");
+
+        // asking again, in the same version, keeps the answer
+        expect(plain.keywordId() == KeywordTable.NONE, "a word became a keyword by itself");
+
+        CaselessLiteral literal = new CaselessLiteral(word);
+        int id = KeywordTable.shared().lookup(word);
+        expect(id != KeywordTable.NONE, "a CaselessLiteral did not intern its word");
+        expect(plain.keywordId() == id, "a token kept a stale miss");
+        expect(lexeme.keywordId() == id, "a lexeme token kept a stale miss");
+        expect(packed.keywordId(0) == id, "a packed row kept a stale miss");
+        expect(number.keywordId() == KeywordTable.NONE, "a number has a keyword id");
+
+        // a later keyword leaves the ids already found alone
+        new CaselessLiteral(word + "-2");
+        expect(plain.keywordId() == id, "a token's id changed when another keyword was added");
+
+        ArrayList<Assembly> in = new ArrayList<Assembly>();
+        in.add(new TokenAssembly(new TokenString(new Token[] { plain })));
+        expect(!literal.match(in).isEmpty(), "a CaselessLiteral missed a differently cased token");
+    }
+
+    /**
+     * Checks each case.
+     *
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        KeywordTableTester t = new KeywordTableTester();
+        t.checkTable();
+        t.checkInvalidation();
+        System.out.println(t.checks + " checks, " + t.failures + " failures");
+        if (t.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
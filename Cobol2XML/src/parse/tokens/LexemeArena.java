@@ -0,0 +1,132 @@
+/*
+ * @(#)LexemeArena.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+/**
+ * A LexemeArena holds the text of the tokens a tokenizer state slices
+ * rather than copies into Strings.
+ * <p>
+ * A state appends the characters of a lexeme one at a time and then
+ * takes a <code>LexemeToken</code> that refers to them where they lie.
+ * Lexemes are packed one after another into large chunks; a chunk is
+ * never written over or cleared, but simply left behind when it is
+ * full, to be collected once no token refers to it. So a lexeme costs
+ * its characters and one token, and nothing more until its text is
+ * asked for.
+ * <p>
+ * A token keeps the whole of its chunk alive, so a token that is kept
+ * long after its input is done with should be asked for its
+ * <code>sval()</code>, and the String kept instead. An arena belongs to
+ * one tokenizer; it is not thread-safe.
+ */
+public class LexemeArena {
+
+    /**
+     * The size of a chunk unless told otherwise.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    protected final int chunkSize;
+    protected char[] chunk;
+    protected int used;
+    protected int length;
+    protected long chunks;
+
+    /**
+     * Constructs an arena with chunks of the default size.
+     */
+    public LexemeArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an arena with chunks of the given size. A lexeme
+     * longer than a chunk gets a chunk of its own.
+     *
+     * @param chunkSize the number of characters in a chunk
+     */
+    public LexemeArena(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Appends a character to the lexeme under way.
+     *
+     * @param c the character to append
+     */
+    public void append(char c) {
+        if (chunk == null || used + length == chunk.length) {
+            newChunk();
+        }
+        chunk[used + length++] = c;
+    }
+
+    /**
+     * Returns the number of chunks this arena has allocated.
+     *
+     * @return the number of chunks this arena has allocated
+     */
+    public long chunks() {
+        return chunks;
+    }
+
+    /**
+     * Forgets the lexeme under way.
+     */
+    public void discard() {
+        length = 0;
+    }
+
+    /**
+     * Returns a token of the given type whose text is the lexeme under
+     * way, and starts another.
+     *
+     * @param ttype the type of the token
+     * @return a token that refers to the lexeme
+     */
+    public LexemeToken take(TokenType ttype) {
+        if (chunk == null) {
+            newChunk();
+        }
+        LexemeToken t = new LexemeToken(ttype, chunk, used, length);
+        used += length;
+        length = 0;
+        return t;
+    }
+
+    /*
+     * Move the lexeme under way to the start of a new chunk, large
+     * enough for it to double.
+     */
+    protected void newChunk() {
+        char[] c = new char[Math.max(chunkSize, length * 2)];
+        if (length > 0) {
+            System.arraycopy(chunk, used, c, 0, length);
+        }
+        chunk = c;
+        used = 0;
+        chunks++;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * @(#)LexemeToken.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+/**
+ * A LexemeToken is a token whose text lies in a
+ * <code>LexemeArena</code>. The String <code>sval()</code> returns is
+ * made the first time it is asked for; comparing, hashing and looking
+ * up the token as a keyword read the characters where they lie.
+ */
+public class LexemeToken extends Token {
+
+    protected final char[] chars;
+    protected final int offset;
+    protected final int length;
+
+    /**
+     * Constructs a token of the given type whose text is a run of
+     * characters in an array, which must not change afterwards.
+     *
+     * @param ttype the type of the token
+     * @param chars the array holding the text of the token
+     * @param offset the start of the text in the array
+     * @param length the length of the text
+     */
+    public LexemeToken(TokenType ttype, char[] chars, int offset, int length) {
+        super(ttype, null, 0);
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns true if the supplied object is an equivalent token,
+     * without making this token's String.
+     *
+     * @param o the object to compare
+     * @return true, if the supplied object is of the same type and
+     * text
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Token)) {
+            return false;
+        }
+        Token t = (Token) o;
+        if (ttype != t.ttype || ttype == TT_NUMBER) {
+            return super.equals(o);
+        }
+        if (t instanceof LexemeToken) {
+            LexemeToken l = (LexemeToken) t;
+            if (l.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chars[offset + i] != l.chars[l.offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return svalEquals(t.sval());
+    }
+
+    /**
+     * Returns true if the supplied object is an equivalent token,
+     * disregarding case.
+     *
+     * @param o the object to compare
+     * @return true, if the supplied object is of the same type and
+     * value, disregarding case
+     */
+    @Override
+    public boolean equalsIgnoreCase(Object o) {
+        sval();
+        if (o instanceof LexemeToken) {
+            ((LexemeToken) o).sval();
+        }
+        return super.equalsIgnoreCase(o);
+    }
+
+    /**
+     * Returns the hash code a Token with the same text would have,
+     * without making this token's String.
+     *
+     * @return a hash code for this token
+     */
+    @Override
+    public int hashCode() {
+        int h;
+        if (sval != null) {
+            h = sval.hashCode();
+        } else {
+            h = 0;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + chars[offset + i];
+            }
+        }
+        // as Objects.hash(ttype, sval, nval)
+        return ((31 + ttype.hashCode()) * 31 + h) * 31 + Double.hashCode(nval);
+    }
+
+    /**
+     * Returns the length of this token's text.
+     *
+     * @return the length of this token's text
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the text of this token, making it into a String the first
+     * time it is asked for.
+     *
+     * @return the text of this token
+     */
+    @Override
+    public String sval() {
+        String s = sval;
+        if (s == null) {
+            s = new String(chars, offset, length);
+            sval = s;
+        }
+        return s;
+    }
+
+    /**
+     * Returns a textual description of this token.
+     *
+     * @return a textual description of this token
+     */
+    @Override
+    public String toString() {
+        sval();
+        return super.toString();
+    }
+
+    /*
+     * Look the text up where it lies.
+     */
+    @Override
+    protected int lookupKeyword(KeywordTable table) {
+        return table.lookup(chars, offset, length);
+    }
+
+    /*
+     * Compare the text where it lies.
+     */
+    @Override
+    protected boolean svalEquals(String s) {
+        if (s == null || s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -22,6 +22,7 @@
 package parse.tokens;
 
 import java.util.ArrayList;
+import parse.Assembly;
 import parse.Parser;
 import parse.Token;
 
@@ -54,6 +55,39 @@ public class Literal extends Terminal {
         return literal.equals((Token) o);
     }
 
+    /**
+     * Returns true if the literal equals the token at the given index
+     * of a packed token string.
+     *
+     * @param tokens a packed token string
+     * @param i the index of the token to test
+     *
+     * @return true, if the specified literal equals the token
+     */
+    protected boolean qualifies(PackedTokenString tokens, int i) {
+        return tokens.matches(i, literal, false);
+    }
+
+    /**
+     * Matches a packed assembly against its token columns, without
+     * building the next token unless it is pushed.
+     *
+     * @param in the assembly to match against
+     *
+     * @return a copy of the assembly advanced past the literal, or null
+     */
+    @Override
+    protected Assembly matchOneAssembly(Assembly in) {
+        if (in instanceof PackedTokenAssembly) {
+            PackedTokenAssembly p = (PackedTokenAssembly) in;
+            if (p.hasMoreElements() && qualifies(p.tokens(), p.elementsConsumed())) {
+                return p.advance(discard);
+            }
+            return null;
+        }
+        return super.matchOneAssembly(in);
+    }
+
     /**
      * Returns a textual description of this parser.
      *
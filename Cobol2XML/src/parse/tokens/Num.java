@@ -38,6 +38,24 @@ protected boolean qualifies(Object o) {
 	Token t = (Token) o;
 	return t.isNumber();
 }
+/**
+ * Matches a packed assembly by its type column, without building
+ * the next token unless it is pushed.
+ *
+ * @param   in   the assembly to match against
+ *
+ * @return   a copy of the assembly advanced past a number, or null
+ */
+protected Assembly matchOneAssembly(Assembly in) {
+	if (in instanceof PackedTokenAssembly) {
+		PackedTokenAssembly p = (PackedTokenAssembly) in;
+		if (p.hasMoreElements() && p.tokens().isNumber(p.elementsConsumed())) {
+			return p.advance(discard);
+		}
+		return null;
+	}
+	return super.matchOneAssembly(in);
+}
 /**
  * Create a set with one random number (between 0 and 
  * 100).
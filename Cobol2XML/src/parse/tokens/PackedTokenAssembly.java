@@ -0,0 +1,89 @@
+/*
+ * @(#)PackedTokenAssembly.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import parse.Assembly;
+
+/**
+ * A PackedTokenAssembly is a TokenAssembly that consumes a
+ * <code>PackedTokenString</code>.
+ * <p>
+ * The terminals in this package recognize this kind of assembly and
+ * test the packed columns directly, so a token object is built only
+ * when a terminal that does not discard its match pushes it onto the
+ * assembly's stack.
+ */
+public class PackedTokenAssembly extends TokenAssembly {
+
+    /**
+     * The packed token string being consumed.
+     */
+    protected PackedTokenString tokens;
+
+    /**
+     * Constructs a PackedTokenAssembly that consumes the tokens a
+     * tokenizer returns.
+     *
+     * @param t the tokenizer to consume tokens from
+     */
+    public PackedTokenAssembly(Tokenizer t) {
+        this(new PackedTokenString(t));
+    }
+
+    /**
+     * Constructs a PackedTokenAssembly from the given packed token
+     * string.
+     *
+     * @param tokens the packed token string to consume
+     */
+    public PackedTokenAssembly(PackedTokenString tokens) {
+        super(tokens);
+        this.tokens = tokens;
+    }
+
+    /**
+     * Returns a copy of this assembly, advanced past its next token.
+     * Unless the token is to be discarded, the copy's stack gets the
+     * token as well.
+     *
+     * @param discard true, if the token should not be pushed
+     * @return a copy of this assembly, advanced past its next token
+     */
+    public Assembly advance(boolean discard) {
+        PackedTokenAssembly a = (PackedTokenAssembly) clone();
+        if (discard) {
+            a.index++;
+        } else {
+            a.push(a.nextElement());
+        }
+        return a;
+    }
+
+    /**
+     * Returns the packed token string this assembly consumes.
+     *
+     * @return the packed token string this assembly consumes
+     */
+    public PackedTokenString tokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * @(#)PackedTokenString.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.io.IOException;
+
+/**
+ * A PackedTokenString stores a stream of tokens in columns rather
+ * than as an array of <code>Token</code> objects.
+ * <p>
+ * Each token is an int type code and an int start and length into
+ * the character buffer that holds its text. The text of a
+ * <code>LexemeToken</code> stays where it lies in its tokenizer's
+ * <code>LexemeArena</code>, whose chunks are never written over, so
+ * only the start and length are kept; the text of other tokens is
+ * copied into one buffer shared by the string. Number tokens have no
+ * text; their start is instead an index into a side array of numeric
+ * values.
+ * <p>
+ * The tokenizer still returns a token for each lexeme, and
+ * <code>tokenAt()</code> still returns one, built the first time it
+ * is asked for and kept, but terminals that match against a
+ * <code>PackedTokenAssembly</code> read the columns directly and
+ * never build one. A token whose type or value the columns cannot
+ * hold, such as a <code>DecimalToken</code> or a token of a type other
+ * than the four this class knows, is kept as it was added.
+ */
+public class PackedTokenString extends TokenString {
+
+    /*
+     * Type codes, indexes into TYPES
+     */
+    public static final int WORD = 0;
+    public static final int NUMBER = 1;
+    public static final int SYMBOL = 2;
+    public static final int QUOTED = 3;
+    public static final int OTHER = 4;
+
+    /*
+     * The token types of the type codes; a token of type OTHER is kept
+     * as it was added, with its own type
+     */
+    protected static final TokenType[] TYPES = {
+        Token.TT_WORD, Token.TT_NUMBER, Token.TT_SYMBOL, Token.TT_QUOTED
+    };
+
+    protected int count;
+    protected int[] types = new int[64];
+    protected int[] starts = new int[64];
+    protected int[] lengths = new int[64];
+
+    protected int textLength;
+    protected char[] text = new char[512];
+
+    protected int numberCount;
+    protected double[] nvals = new double[16];
+
+    /*
+     * The chunk of a lexeme arena that holds the text of each token,
+     * or null where the text is in the shared buffer; allocated when
+     * the first lexeme is added
+     */
+    protected char[][] chunks;
+
+    /*
+     * The token at each index, once built or if kept as added;
+     * allocated when first needed
+     */
+    protected Token[] made;
+
+    /*
+     * The keyword ids of the words, kept as Token keeps its own;
+     * allocated when first asked for
+     */
+    protected int[] keywords;
+
+    /**
+     * Constructs an empty packed token string, to be filled with
+     * <code>add()</code>.
+     */
+    public PackedTokenString() {
+        super(new Token[0]);
+    }
+
+    /**
+     * Constructs a packed token string from the tokens a tokenizer
+     * returns up to the end of its input.
+     *
+     * @param t the tokenizer to read tokens from
+     */
+    public PackedTokenString(Tokenizer t) {
+        this();
+        try {
+            while (true) {
+                Token tok = t.nextToken();
+                if (tok.ttype() == Token.TT_EOF) {
+                    break;
+                }
+                add(tok);
+            }
+        } catch (IOException e) {
+            throw new InternalError("Problem tokenizing string: " + e);
+        }
+    }
+
+    /**
+     * Appends a token. The text of a lexeme is referred to where it
+     * lies in its arena; other text is copied into the shared buffer.
+     * A token the columns cannot stand for is kept as well.
+     *
+     * @param tok the token to append
+     */
+    public void add(Token tok) {
+        int type = typeCode(tok.ttype());
+        if (type == NUMBER) {
+            addNumber(type, tok.nval());
+            if (tok.getClass() != Token.class) {
+                // an exact number, such as a DecimalToken
+                keep(tok);
+            }
+        } else if (type == OTHER) {
+            addText(type, tok.sval());
+            keep(tok);
+        } else if (tok instanceof LexemeToken) {
+            LexemeToken l = (LexemeToken) tok;
+            addSlice(type, l.chars, l.offset, l.length);
+        } else {
+            addText(type, tok.sval());
+        }
+    }
+
+    /**
+     * Appends a number token.
+     *
+     * @param type the type code, normally NUMBER
+     * @param nval the numeric value of the token
+     * @throws IllegalArgumentException if the type code is OTHER
+     */
+    public void add(int type, double nval) {
+        checkType(type);
+        addNumber(type, nval);
+    }
+
+    /*
+     * Append a number token's value to the side array.
+     */
+    protected void addNumber(int type, double nval) {
+        if (numberCount == nvals.length) {
+            double[] nv = new double[nvals.length * 2];
+            System.arraycopy(nvals, 0, nv, 0, numberCount);
+            nvals = nv;
+        }
+        nvals[numberCount] = nval;
+        addEntry(type, numberCount++, 0);
+    }
+
+    /**
+     * Appends a token with the given type code and text.
+     *
+     * @param type the type code
+     * @param sval the text of the token
+     * @throws IllegalArgumentException if the type code is OTHER
+     */
+    public void add(int type, String sval) {
+        checkType(type);
+        addText(type, sval);
+    }
+
+    /*
+     * Append a token, copying its text into the shared buffer.
+     */
+    protected void addText(int type, String sval) {
+        int len = sval == null ? 0 : sval.length();
+        ensureText(len);
+        if (len > 0) {
+            sval.getChars(0, len, text, textLength);
+        }
+        addEntry(type, textLength, len);
+        textLength += len;
+    }
+
+    /**
+     * Appends a token with the given type code whose text is a run
+     * of characters from an array.
+     *
+     * @param type the type code
+     * @param chars the array holding the text of the token
+     * @param offset the start of the text in the array
+     * @param len the length of the text
+     * @throws IllegalArgumentException if the type code is OTHER
+     */
+    public void add(int type, char[] chars, int offset, int len) {
+        checkType(type);
+        ensureText(len);
+        System.arraycopy(chars, offset, text, textLength, len);
+        addEntry(type, textLength, len);
+        textLength += len;
+    }
+
+    /*
+     * Append a token whose text stays where it lies in a chunk of a
+     * lexeme arena, which is never written over.
+     */
+    protected void addSlice(int type, char[] chunk, int offset, int len) {
+        if (chunks == null) {
+            chunks = new char[types.length][];
+        }
+        addEntry(type, offset, len);
+        chunks[count - 1] = chunk;
+    }
+
+    /*
+     * Keep the token just appended, to be returned by tokenAt().
+     */
+    protected void keep(Token tok) {
+        if (made == null) {
+            made = new Token[types.length];
+        }
+        made[count - 1] = tok;
+    }
+
+    /*
+     * Refuse the OTHER type code, which alone does not say what type
+     * a token is; add such a token with add(Token).
+     */
+    protected static void checkType(int type) {
+        if (type < WORD || type >= OTHER) {
+            throw new IllegalArgumentException("Unknown type code " + type);
+        }
+    }
+
+    /*
+     * Return the array that holds the text of the token at the given
+     * index.
+     */
+    protected char[] textOf(int i) {
+        char[] c = chunks == null ? null : chunks[i];
+        return c == null ? text : c;
+    }
+
+    /*
+     * Append one row to the token columns.
+     */
+    protected void addEntry(int type, int start, int len) {
+        if (count == types.length) {
+            int n = count * 2;
+            int[] t = new int[n];
+            int[] s = new int[n];
+            int[] l = new int[n];
+            System.arraycopy(types, 0, t, 0, count);
+            System.arraycopy(starts, 0, s, 0, count);
+            System.arraycopy(lengths, 0, l, 0, count);
+            types = t;
+            starts = s;
+            lengths = l;
+            if (keywords != null) {
+                int[] k = new int[n];
+                System.arraycopy(keywords, 0, k, 0, count);
+                keywords = k;
+            }
+            if (chunks != null) {
+                char[][] c = new char[n][];
+                System.arraycopy(chunks, 0, c, 0, count);
+                chunks = c;
+            }
+            if (made != null) {
+                Token[] m = new Token[n];
+                System.arraycopy(made, 0, m, 0, count);
+                made = m;
+            }
+        }
+        types[count] = type;
+        starts[count] = start;
+        lengths[count] = len;
+        count++;
+    }
+
+    /*
+     * Grow the text buffer to hold len more characters.
+     */
+    protected void ensureText(int len) {
+        if (textLength + len > text.length) {
+            char[] nt = new char[Math.max(text.length * 2, textLength + len)];
+            System.arraycopy(text, 0, nt, 0, textLength);
+            text = nt;
+        }
+    }
+
+    /**
+     * Returns the id the shared <code>KeywordTable</code> gives the
+     * token at the given index, or <code>KeywordTable.NONE</code> if it
+     * is not a word or not a keyword, as <code>Token.keywordId()</code>
+     * does.
+     *
+     * @param i the index of a token
+     * @return the token's keyword id, or KeywordTable.NONE
+     */
+    public int keywordId(int i) {
+        if (types[i] != WORD) {
+            return KeywordTable.NONE;
+        }
+        if (keywords == null) {
+            keywords = new int[types.length];
+        }
+        int k = keywords[i];
+        if (k > 0) {
+            return k;
+        }
+        KeywordTable table = KeywordTable.shared();
+        int version = table.version();
+        if (KeywordTable.missedIn(k, version)) {
+            return KeywordTable.NONE;
+        }
+        int id = table.lookup(textOf(i), starts[i], lengths[i]);
+        keywords[i] = KeywordTable.stamp(id, version);
+        return id;
+    }
+
+    /**
+     * Returns true if the token at the given index is a number.
+     *
+     * @param i the index of a token
+     * @return true, if the token is a number
+     */
+    public boolean isNumber(int i) {
+        return types[i] == NUMBER;
+    }
+
+    /**
+     * Returns true if the token at the given index is a quoted string.
+     *
+     * @param i the index of a token
+     * @return true, if the token is a quoted string
+     */
+    public boolean isQuotedString(int i) {
+        return types[i] == QUOTED;
+    }
+
+    /**
+     * Returns true if the token at the given index is a symbol.
+     *
+     * @param i the index of a token
+     * @return true, if the token is a symbol
+     */
+    public boolean isSymbol(int i) {
+        return types[i] == SYMBOL;
+    }
+
+    /**
+     * Returns true if the token at the given index is a word.
+     *
+     * @param i the index of a token
+     * @return true, if the token is a word
+     */
+    public boolean isWord(int i) {
+        return types[i] == WORD;
+    }
+
+    /**
+     * Returns the number of tokens in this token string.
+     *
+     * @return the number of tokens in this token string
+     */
+    @Override
+    public int length() {
+        return count;
+    }
+
+    /**
+     * Returns true if the token at the given index equals the given
+     * token, in the sense of <code>Token.equals()</code>.
+     *
+     * @param i the index of a token
+     * @param tok the token to compare against
+     * @param ignoreCase true, to disregard case in the text
+     * @return true, if the tokens are equal
+     */
+    public boolean matches(int i, Token tok, boolean ignoreCase) {
+        int type = typeCode(tok.ttype());
+        if (types[i] != type) {
+            return false;
+        }
+        if (type == OTHER || (type == NUMBER && made != null && made[i] != null)) {
+            Token t = tokenAt(i);
+            return ignoreCase ? t.equalsIgnoreCase(tok) : t.equals(tok);
+        }
+        if (type == NUMBER) {
+            return nvals[starts[i]] == tok.nval();
+        }
+        return textEquals(i, tok.sval(), ignoreCase);
+    }
+
+    /**
+     * Returns the numeric value of the token at the given index, or
+     * 0 if it is not a number.
+     *
+     * @param i the index of a token
+     * @return the numeric value of the token
+     */
+    public double nval(int i) {
+        return types[i] == NUMBER ? nvals[starts[i]] : 0;
+    }
+
+    /**
+     * Returns the text of the token at the given index as a new
+     * string.
+     *
+     * @param i the index of a token
+     * @return the text of the token
+     */
+    public String sval(int i) {
+        return types[i] == NUMBER ? "" : new String(textOf(i), starts[i], lengths[i]);
+    }
+
+    /**
+     * Returns true if the text of the token at the given index is
+     * the given string.
+     *
+     * @param i the index of a token
+     * @param s the string to compare against
+     * @param ignoreCase true, to disregard case
+     * @return true, if the text of the token is the given string
+     */
+    public boolean textEquals(int i, String s, boolean ignoreCase) {
+        if (s == null || types[i] == NUMBER) {
+            return false;
+        }
+        int len = lengths[i];
+        if (len != s.length()) {
+            return false;
+        }
+        char[] text = textOf(i);
+        int start = starts[i];
+        for (int j = 0; j < len; j++) {
+            char c1 = text[start + j];
+            char c2 = s.charAt(j);
+            if (c1 != c2 && (!ignoreCase
+                    || Character.toUpperCase(c1) != Character.toUpperCase(c2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a token equivalent to the one at the given index. The
+     * token is built the first time it is asked for and kept, so an
+     * assembly that peeks at a token and then takes it builds one
+     * token; matching terminals do not call this.
+     *
+     * @param i the index of a token
+     * @return the token at the given index
+     */
+    @Override
+    public Token tokenAt(int i) {
+        if (i < 0 || i >= count) {
+            throw new ArrayIndexOutOfBoundsException(i);
+        }
+        if (made == null) {
+            made = new Token[types.length];
+        }
+        Token t = made[i];
+        if (t == null) {
+            char[] c = chunks == null ? null : chunks[i];
+            t = c != null
+                    ? new LexemeToken(TYPES[types[i]], c, starts[i], lengths[i])
+                    : new Token(TYPES[types[i]], sval(i), nval(i));
+            made[i] = t;
+        }
+        return t;
+    }
+
+    /**
+     * Returns the type code of the token at the given index.
+     *
+     * @param i the index of a token
+     * @return the type code of the token
+     */
+    public int typeAt(int i) {
+        return types[i];
+    }
+
+    /**
+     * Returns the type code for a token type.
+     *
+     * @param ttype a token type
+     * @return the type code for the token type
+     */
+    public static int typeCode(TokenType ttype) {
+        for (int i = 0; i < OTHER; i++) {
+            if (TYPES[i] == ttype) {
+                return i;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Returns a string representation of this token string.
+     *
+     * @return a string representation of this token string
+     */
+    @Override
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                buf.append(' ');
+            }
+            buf.append(tokenAt(i));
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * @(#)ReplacingTokenString.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A ReplacingTokenString is a view of another token string with the
+ * replacements of a COBOL <code>REPLACING</code> phrase applied.
+ * <p>
+ * Each replacement swaps a run of tokens for another run. Tokens are
+ * compared as COBOL compares them, without regard to case. Where
+ * every replacement swaps one token for one token, the view maps each
+ * token as it is asked for and never copies the underlying string.
+ * Otherwise the replaced tokens are worked out the first time any
+ * token is asked for, and kept.
+ */
+public class ReplacingTokenString extends TokenString {
+
+    protected TokenString base;
+    protected List<Token[]> from = new ArrayList<Token[]>();
+    protected List<Token[]> to = new ArrayList<Token[]>();
+    protected boolean oneForOne = true;
+
+    /*
+     * The replaced tokens, once worked out, when some replacement is
+     * not one for one
+     */
+    protected Token[] replaced;
+
+    /**
+     * Constructs a view of the given token string, with no
+     * replacements yet.
+     *
+     * @param base the token string to view
+     */
+    public ReplacingTokenString(TokenString base) {
+        super(new Token[0]);
+        this.base = base;
+    }
+
+    /**
+     * Adds a replacement. Replacements are tried in the order added,
+     * and the first that matches at a token wins.
+     *
+     * @param pattern the tokens to replace; at least one
+     * @param replacement the tokens to put in their place
+     * @return this
+     */
+    public ReplacingTokenString replace(Token[] pattern, Token[] replacement) {
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("Empty REPLACING pattern");
+        }
+        if (replaced != null) {
+            throw new IllegalStateException("Replacements already applied");
+        }
+        from.add(pattern);
+        to.add(replacement);
+        oneForOne &= pattern.length == 1 && replacement.length == 1;
+        return this;
+    }
+
+    /**
+     * Returns the number of tokens in this token string.
+     *
+     * @return the number of tokens in this token string
+     */
+    @Override
+    public int length() {
+        return oneForOne ? base.length() : replaced().length;
+    }
+
+    /**
+     * Returns the token at the specified index.
+     *
+     * @param i the index of the desired token
+     * @return the token at the specified index
+     */
+    @Override
+    public Token tokenAt(int i) {
+        if (!oneForOne) {
+            return replaced()[i];
+        }
+        Token t = base.tokenAt(i);
+        for (int k = 0; k < from.size(); k++) {
+            if (from.get(k)[0].equalsIgnoreCase(t)) {
+                return to.get(k)[0];
+            }
+        }
+        return t;
+    }
+
+    /*
+     * Work out the replaced tokens, once.
+     */
+    protected Token[] replaced() {
+        Token[] r = replaced;
+        if (r == null) {
+            ArrayList<Token> out = new ArrayList<Token>(base.length());
+            int n = base.length();
+            int i = 0;
+            scan:
+            while (i < n) {
+                for (int k = 0; k < from.size(); k++) {
+                    Token[] p = from.get(k);
+                    if (matchesAt(p, i)) {
+                        for (Token t : to.get(k)) {
+                            out.add(t);
+                        }
+                        i += p.length;
+                        continue scan;
+                    }
+                }
+                out.add(base.tokenAt(i++));
+            }
+            r = out.toArray(new Token[out.size()]);
+            replaced = r;
+        }
+        return r;
+    }
+
+    /*
+     * Return true if the pattern matches the base tokens at i.
+     */
+    protected boolean matchesAt(Token[] pattern, int i) {
+        if (i + pattern.length > base.length()) {
+            return false;
+        }
+        for (int j = 0; j < pattern.length; j++) {
+            if (!pattern[j].equalsIgnoreCase(base.tokenAt(i + j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a string representation of this token string.
+     *
+     * @return a string representation of this token string
+     */
+    @Override
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        int n = length();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                buf.append(' ');
+            }
+            buf.append(tokenAt(i));
+        }
+        return buf.toString();
+    }
+}
@@ -26,15 +26,16 @@ import java.io.PushbackReader;
 public class SlashSlashState extends TokenizerState {
 
     /**
-     * Ignore everything up to an end-of-line and return the tokenizer's next token.
+     * Ignore everything up to an end-of-line and return <code>SKIP</code>,
+     * so that the tokenizer goes on to its next token.
      *
-     * @return the tokenizer's next token
+     * @return SKIP
      */
     public Token nextToken(PushbackReader r, int theSlash, Tokenizer t) throws IOException {
         int c;
         while ((c = r.read()) != '\n' && c != '\r' && c != -1) {
             // Empty to consume newline or carriage returns
         }
-        return t.nextToken();
+        return SKIP;
     }
 }
@@ -26,8 +26,8 @@ import java.io.PushbackReader;
 public class SlashStarState extends TokenizerState {
 
     /**
-     * Ignore everything up to a closing star and slash, and then return the
-     * tokenizer's next token.
+     * Ignore everything up to a closing star and slash, and then return
+     * <code>SKIP</code>, so that the tokenizer goes on to its next token.
      *
      * @param r
      *            the PushbackReader to read from
@@ -35,7 +35,7 @@ public class SlashStarState extends TokenizerState {
      *            the position of the opening slash-star
      * @param t
      *            the Tokenizer to get the next token from
-     * @return the tokenizer's next token
+     * @return SKIP
      * @throws IOException
      *             if there is an error reading from the PushbackReader
      */
@@ -47,4 +47,9 @@ public class SlashStarState extends TokenizerState {
             if ((lastc == '*') && (c == '/')) {
                 break;
             }
-           
+            lastc = c;
+            c = r.read();
+        }
+        return SKIP;
+    }
+}
@@ -1,7 +1,31 @@
+/*
+ * Copyright (c) 1999 Steven J. Metsker
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+
+package parse.tokens;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+
 /**
  * A state for recognizing symbols in a tokenizer. This class is responsible for 
  * identifying and processing symbols in the input stream. It maintains a list of 
- * multi-character symbols that it can recognize.
+ * multi-character symbols that it can recognize, in a <code>SymbolTrie</code>.
+ * Tokenizers that do not change the symbols all share the default trie.
  *
  * This code is distributed under the GNU Lesser General Public License, which 
  * allows for free use, redistribution, and modification, but comes with no 
@@ -10,21 +34,16 @@
 public class SymbolState extends TokenizerState {
 
     /**
-     * The root node of a trie data structure that stores the multi-character 
-     * symbols that this state can recognize.
+     * The trie that stores the multi-character symbols that this state can
+     * recognize. Tries are immutable; adding or removing a symbol replaces it.
      */
-    SymbolRootNode symbols = new SymbolRootNode();
+    protected SymbolTrie symbols = SymbolTrie.DEFAULT;
 
     /**
      * Constructs a symbol state with a default set of multi-character symbols to 
-     * recognize. These symbols are: "!=", ":-", "<=", and ">=".
+     * recognize. These symbols are: "!=", ":-", "<=", ">=", "**" and "<>".
      */
     public SymbolState() {
-        // Adds the default set of multi-character symbols to the trie
-        add("!=");
-        add(":-");
-        add("<=");
-        add(">=");
     }
 
     /**
@@ -33,7 +52,7 @@ public class SymbolState extends TokenizerState {
      * @param s the symbol to add, such as "=:="
      */
     public void add(String s) {
-        symbols.add(s);
+        symbols = symbols.with(s);
     }
 
     /**
@@ -42,29 +61,22 @@ public class SymbolState extends TokenizerState {
      * @param s the symbol to remove, such as "=:="
      */
     public void remove(String s) {
-        symbols.remove(s);
+        symbols = symbols.without(s);
     }
 
     /**
      * Reads the next token from the input stream, starting at the given character 
-     * position. If the next token is a multi-character symbol that this state can 
-     * recognize, it returns a new SymbolToken with the symbol's value. Otherwise, 
-     * it returns null.
+     * position. If the next characters form a multi-character symbol that this state 
+     * can recognize, it returns a token for the longest such symbol. Otherwise, it 
+     * returns a token for the first character alone. The tokens are made once, when 
+     * the trie is built, and are shared.
      *
-     * @return a symbol token from the input stream, or null if no symbol is 
-     *         recognized
+     * @return a symbol token from the input stream
      */
     public Token nextToken(PushbackReader r, int first, Tokenizer t) throws IOException {
         if (r == null) {
             throw new IllegalArgumentException("PushbackReader r cannot be null");
         }
-
-        // Reads the next symbol from the input stream using the trie data structure
-        String s = symbols.nextSymbol(r, first);
-        if (s != null && !s.isEmpty()) { // If a symbol was recognized
-            return new SymbolToken(s); // Returns a new SymbolToken with the symbol's value
-        } else {
-            return null; // Otherwise, returns null
-        }
+        return symbols.nextSymbol(r, first);
     }
 }
@@ -0,0 +1,297 @@
+/*
+ * @(#)SymbolTrie.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A SymbolTrie recognizes the multi-character symbols a tokenizer
+ * knows, such as <code>&lt;=</code> and <code>**</code>.
+ * <p>
+ * The trie is a table: each state has a row of next states, one per
+ * character that appears in any symbol, and characters are mapped to
+ * their column by an array. Each state that ends a symbol holds the
+ * token for it, made when the trie is built. Reading a symbol is then
+ * a few array lookups, with no allocation and no locking.
+ * <p>
+ * A trie never changes once built, so one can be shared by any number
+ * of tokenizers. To change the symbols, build a new trie with
+ * <code>with()</code> or <code>without()</code>.
+ * <p>
+ * Any character that does not begin a longer symbol is a symbol by
+ * itself. A symbol is read with pushback, so no symbol may be longer
+ * than the reader's pushback buffer.
+ */
+public final class SymbolTrie {
+
+    /**
+     * The multi-character symbols of the default trie.
+     */
+    public static final String[] DEFAULT_SYMBOLS = { "!=", ":-", "<=", ">=", "**", "<>" };
+
+    /*
+     * The tokens for the characters 0-255 as symbols by themselves
+     */
+    private static final Token[] SINGLES = new Token[256];
+
+    static {
+        for (int i = 0; i < SINGLES.length; i++) {
+            SINGLES[i] = new Token(Token.TT_SYMBOL, String.valueOf((char) i), 0);
+        }
+    }
+
+    /**
+     * A trie of the default symbols, shared by every tokenizer that
+     * does not change them.
+     */
+    public static final SymbolTrie DEFAULT = new SymbolTrie(Arrays.asList(DEFAULT_SYMBOLS));
+
+    private final Set<String> symbols;
+
+    /*
+     * The column of each character, or -1 if no symbol uses it
+     */
+    private final int[] column;
+
+    /*
+     * The next state, by state and column; 0 means none, since no
+     * transition leads back to the root
+     */
+    private final int[] next;
+    private final int width;
+
+    /*
+     * The token a state ends, or null if it ends no symbol; and the
+     * state's depth
+     */
+    private final Token[] accept;
+    private final int[] depth;
+
+    /*
+     * The last character read to reach each state
+     */
+    private final char[] last;
+    private final int[] parent;
+
+    /**
+     * Builds a trie of the given multi-character symbols.
+     *
+     * @param symbols the symbols to recognize, each at least two
+     *                characters long
+     */
+    public SymbolTrie(Iterable<String> symbols) {
+        TreeSet<String> set = new TreeSet<String>();
+        int maxChar = -1;
+        for (String s : symbols) {
+            if (s.length() < 2) {
+                throw new IllegalArgumentException("Not a multi-character symbol: \"" + s + "\"");
+            }
+            set.add(s);
+            for (int i = 0; i < s.length(); i++) {
+                maxChar = Math.max(maxChar, s.charAt(i));
+            }
+        }
+        this.symbols = Collections.unmodifiableSet(set);
+
+        column = new int[maxChar + 1];
+        Arrays.fill(column, -1);
+        int w = 0;
+        for (String s : set) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (column[c] < 0) {
+                    column[c] = w++;
+                }
+            }
+        }
+        width = w;
+
+        Map<String, Integer> states = new HashMap<String, Integer>();
+        ArrayList<String> prefixes = new ArrayList<String>();
+        states.put("", 0);
+        prefixes.add("");
+        for (String s : set) {
+            for (int i = 1; i <= s.length(); i++) {
+                String p = s.substring(0, i);
+                if (!states.containsKey(p)) {
+                    states.put(p, prefixes.size());
+                    prefixes.add(p);
+                }
+            }
+        }
+
+        int n = prefixes.size();
+        next = new int[n * width];
+        accept = new Token[n];
+        depth = new int[n];
+        last = new char[n];
+        parent = new int[n];
+        for (int state = 1; state < n; state++) {
+            String p = prefixes.get(state);
+            char c = p.charAt(p.length() - 1);
+            int from = states.get(p.substring(0, p.length() - 1));
+            next[from * width + column[c]] = state;
+            depth[state] = p.length();
+            last[state] = c;
+            parent[state] = from;
+            if (p.length() == 1) {
+                accept[state] = single(c);
+            } else if (set.contains(p)) {
+                accept[state] = new Token(Token.TT_SYMBOL, p, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the next state after reading the given character, or 0
+     * if there is none.
+     */
+    private int step(int state, int c) {
+        if (c < 0 || c >= column.length) {
+            return 0;
+        }
+        int col = column[c];
+        return col < 0 ? 0 : next[state * width + col];
+    }
+
+    /**
+     * Reads the longest symbol that begins with the given character,
+     * leaving the reader just past it.
+     *
+     * @param r the reader to read from
+     * @param first the first character of the symbol
+     * @return a symbol token for the longest symbol read
+     * @throws IOException if the reader fails
+     */
+    public Token nextSymbol(PushbackReader r, int first) throws IOException {
+        int state = step(0, first);
+        if (state == 0) {
+            return single((char) first);
+        }
+        int c;
+        while (true) {
+            c = r.read();
+            int to = step(state, c);
+            if (to == 0) {
+                break;
+            }
+            state = to;
+        }
+        if (c >= 0) {
+            r.unread(c);
+        }
+        while (accept[state] == null) {
+            r.unread(last[state]);
+            state = parent[state];
+        }
+        return accept[state];
+    }
+
+    /**
+     * Returns true if the given string is one of this trie's
+     * multi-character symbols.
+     *
+     * @param s a string
+     * @return true, if the string is one of this trie's symbols
+     */
+    public boolean contains(String s) {
+        return symbols.contains(s);
+    }
+
+    /**
+     * Returns the length of the longest symbol in this trie.
+     *
+     * @return the length of the longest symbol in this trie
+     */
+    public int maxLength() {
+        int max = 1;
+        for (int d : depth) {
+            max = Math.max(max, d);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the multi-character symbols of this trie.
+     *
+     * @return the multi-character symbols of this trie
+     */
+    public Set<String> symbols() {
+        return symbols;
+    }
+
+    /**
+     * Returns a trie with the symbols of this one and the given one.
+     * Single characters are symbols already, and are ignored.
+     *
+     * @param s the symbol to add
+     * @return a trie that also recognizes the symbol
+     */
+    public SymbolTrie with(String s) {
+        if (s.length() < 2 || symbols.contains(s)) {
+            return this;
+        }
+        TreeSet<String> set = new TreeSet<String>(symbols);
+        set.add(s);
+        return new SymbolTrie(set);
+    }
+
+    /**
+     * Returns a trie with the symbols of this one but the given one.
+     *
+     * @param s the symbol to remove
+     * @return a trie that does not recognize the symbol
+     */
+    public SymbolTrie without(String s) {
+        if (!symbols.contains(s)) {
+            return this;
+        }
+        TreeSet<String> set = new TreeSet<String>(symbols);
+        set.remove(s);
+        return new SymbolTrie(set);
+    }
+
+    /*
+     * Return the token for a character as a symbol by itself.
+     */
+    private static Token single(char c) {
+        return c < SINGLES.length ? SINGLES[c] : new Token(Token.TT_SYMBOL, String.valueOf(c), 0);
+    }
+
+    /**
+     * Returns a textual description of this trie.
+     *
+     * @return a textual description of this trie
+     */
+    @Override
+    public String toString() {
+        return "SymbolTrie" + symbols;
+    }
+}
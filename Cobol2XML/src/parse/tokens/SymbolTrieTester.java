@@ -0,0 +1,204 @@
+/*
+ * @(#)SymbolTrieTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package parse.tokens;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A SymbolTrieTester checks that a <code>SymbolTrie</code> reads the
+ * longest symbol at each point of a string, and leaves the reader
+ * just past it.
+ * <p>
+ * It reads some fixed strings, such as <code>***</code> and
+ * <code>&lt;=&gt;</code>, and random strings of symbol characters,
+ * and compares the symbols read with those a plain longest-match
+ * search of the symbol list finds. It checks the default trie, tries
+ * changed by <code>with()</code> and <code>without()</code>, and a
+ * trie whose symbols share prefixes that are not symbols themselves.
+ * <p>
+ * The tester exits with status 1 if any string reads differently.
+ */
+public class SymbolTrieTester {
+
+    protected long checks;
+    protected long failures;
+
+    /*
+     * Return the symbols a trie reads from a string, skipping blanks.
+     */
+    protected static List<String> read(SymbolTrie trie, String s) throws IOException {
+        PushbackReader r = new PushbackReader(new StringReader(s), trie.maxLength());
+        List<String> out = new ArrayList<String>();
+        int c;
+        while ((c = r.read()) >= 0) {
+            if (c != ' ') {
+                out.add(trie.nextSymbol(r, c).sval());
+            }
+        }
+        return out;
+    }
+
+    /*
+     * Return the symbols a longest-match search of the trie's symbol
+     * list finds in a string, skipping blanks.
+     */
+    protected static List<String> expected(SymbolTrie trie, String s) {
+        List<String> out = new ArrayList<String>();
+        int i = 0;
+        while (i < s.length()) {
+            if (s.charAt(i) == ' ') {
+                i++;
+                continue;
+            }
+            String best = s.substring(i, i + 1);
+            for (String sym : trie.symbols()) {
+                if (s.startsWith(sym, i) && sym.length() > best.length()) {
+                    best = sym;
+                }
+            }
+            out.add(best);
+            i += best.length();
+        }
+        return out;
+    }
+
+    /**
+     * Reads a string with a trie, and returns true if the symbols read
+     * are the given ones.
+     *
+     * @param trie the trie to read with
+     * @param s the string to read
+     * @param symbols the symbols expected
+     * @return true, if the trie reads the expected symbols
+     * @throws IOException if the string cannot be read
+     */
+    public boolean check(SymbolTrie trie, String s, String... symbols) throws IOException {
+        checks++;
+        List<String> actual = read(trie, s);
+        if (!actual.equals(Arrays.asList(symbols))) {
+            return fail(trie + " reads \"" + s + "\" as " + actual + ", not " + Arrays.asList(symbols));
+        }
+        return true;
+    }
+
+    /**
+     * Reads random strings of symbol characters with a trie, and
+     * returns true if each reads as a longest-match search finds.
+     *
+     * @param trie the trie to read with
+     * @param chars the characters to make strings of
+     * @param random the source of the strings
+     * @param count the number of strings
+     * @return true, if every string reads as expected
+     * @throws IOException if a string cannot be read
+     */
+    public boolean checkRandom(SymbolTrie trie, String chars, Random random, int count) throws IOException {
+        boolean ok = true;
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int n = random.nextInt(10);
+            for (int j = 0; j < n; j++) {
+                sb.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            String s = sb.toString();
+            checks++;
+            List<String> actual = read(trie, s);
+            List<String> expected = expected(trie, s);
+            if (!actual.equals(expected)) {
+                ok = fail(trie + " reads \"" + s + "\" as " + actual + ", not " + expected);
+            }
+        }
+        return ok;
+    }
+
+    /*
+     * Report a failure, and return false.
+     */
+    protected boolean fail(String message) {
+        if (failures < 10) {
+            System.out.println("FAILS: " + message);
+        }
+        failures++;
+        return false;
+    }
+
+    /**
+     * Checks each case.
+     *
+     * @param args ignored
+     * @throws IOException if a string cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        SymbolTrieTester t = new SymbolTrieTester();
+        SymbolTrie d = SymbolTrie.DEFAULT;
+        t.check(d, "**", "**");
+        t.check(d, "***", "**", "*");
+        t.check(d, "* *", "*", "*");
+        t.check(d, "<>", "<>");
+        t.check(d, "<=>", "<=", ">");
+        t.check(d, "<<>", "<", "<>");
+        t.check(d, "!=:-", "!=", ":-");
+        t.check(d, "<", "<");
+        t.check(d, "a<b", "a", "<", "b");
+        t.check(d.without("<>"), "<>", "<", ">");
+        t.check(d.with("**="), "**=*", "**=", "*");
+        t.check(d.with("**="), "**<", "**", "<");
+
+        // prefixes of "abc" and "a-b-c" are not symbols, so reading
+        // them backs up to the last symbol seen
+        SymbolTrie deep = new SymbolTrie(Arrays.asList("abc", "a-b-c", "==="));
+        t.check(deep, "abd", "a", "b", "d");
+        t.check(deep, "abcabc", "abc", "abc");
+        t.check(deep, "a-b-d", "a", "-", "b", "-", "d");
+        t.check(deep, "====", "===", "=");
+        t.check(deep, "==", "=", "=");
+
+        t.checks++;
+        Token first = d.nextSymbol(new PushbackReader(new StringReader("*"), 2), '*');
+        Token second = d.nextSymbol(new PushbackReader(new StringReader("* "), 2), '*');
+        if (first != second) {
+            t.fail("the trie makes a new token for each \"**\"");
+        }
+        t.checks++;
+        try {
+            new SymbolTrie(Arrays.asList("*"));
+            t.fail("a one-character symbol was accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        Random random = new Random(1);
+        t.checkRandom(d, "<>=*!:- a", random, 20000);
+        t.checkRandom(d.with("<=>").without("!="), "<>=*!:- a", random, 20000);
+        t.checkRandom(deep, "abc-= ", random, 20000);
+        System.out.println(t.checks + " checks, " + t.failures + " failures");
+        if (t.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -45,6 +45,12 @@ public class Token {
      */
     protected double nval;
 
+    /*
+     * This token's keyword id once looked up, or a stamp of the
+     * keyword table version it was not found in; 0 until looked up
+     */
+    private int keyword;
+
     // Constants
 
     /**
@@ -150,17 +156,59 @@ public class Token {
             return false;
         }
         if (ttype == TT_NUMBER) {
-            return nval == t.nval;
+            return nval() == t.nval();
         }
-        if (sval == null || t.sval == null) {
-            return false;
-        }
-        return sval.equals(t.sval);
+        String s = sval();
+        return s != null && t.svalEquals(s);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(ttype, sval, nval);
+        // as Objects.hash(ttype, sval, nval), without boxing nval
+        return ((31 + Objects.hashCode(ttype)) * 31 + Objects.hashCode(sval)) * 31 + Double.hashCode(nval);
+    }
+
+    /**
+     * Returns the id the shared <code>KeywordTable</code> gives this
+     * token's text, or <code>KeywordTable.NONE</code> if this token is
+     * not a word or its text is not a keyword. The id is looked up the
+     * first time it is asked for and kept, so two words can be
+     * compared without regard to case by comparing their ids.
+     *
+     * @return this token's keyword id, or KeywordTable.NONE
+     */
+    public int keywordId() {
+        int k = keyword;
+        if (k > 0) {
+            return k;
+        }
+        if (ttype != TT_WORD) {
+            return KeywordTable.NONE;
+        }
+        KeywordTable table = KeywordTable.shared();
+        int version = table.version();
+        if (KeywordTable.missedIn(k, version)) {
+            return KeywordTable.NONE;
+        }
+        int id = lookupKeyword(table);
+        keyword = KeywordTable.stamp(id, version);
+        return id;
+    }
+
+    /*
+     * Return the id the given table has for this token's text.
+     */
+    protected int lookupKeyword(KeywordTable table) {
+        String s = sval();
+        return s == null ? KeywordTable.NONE : table.lookup(s);
+    }
+
+    /*
+     * Return true if this token's text is the given string.
+     */
+    protected boolean svalEquals(String s) {
+        String v = sval();
+        return v != null && v.equals(s);
     }
 
     /**
@@ -69,6 +69,17 @@ public class TokenAssembly extends Assembly {
         return buf.toString();
     }
 
+    /**
+     * Returns the token string this assembly consumes, which its copies
+     * share.
+     *
+     * @return the token string this assembly consumes
+     */
+    @Override
+    public Object source() {
+        return tokenString;
+    }
+
     /**
      * Returns the default string to show between elements consumed or remaining.
      *
@@ -85,19 +85,28 @@ public class Tokenizer {
     }
 
     /**
-     * Returns the next token.
+     * Returns the next token. Each character read is dispatched to
+     * the state for it; states that consume text making no token,
+     * such as whitespace and comments, return
+     * <code>TokenizerState.SKIP</code> and the next character is
+     * dispatched in turn.
      *
      * @return the next token.
      *
      * @exception IOException if there is any problem reading
      */
     public Token nextToken() throws IOException {
-        int c = reader.read(); // Read the next character
+        while (true) {
+            int c = reader.read(); // Read the next character
 
-        if (c >= 0 && c < characterState.length) {
-            return characterState[c].nextToken(reader, c, this); // Dispatch to the appropriate state based on the character
+            if (c < 0 || c >= characterState.length) {
+                return Token.EOF; // Return the end-of-file token if the character is out of range
+            }
+            Token tok = characterState[c].nextToken(reader, c, this); // Dispatch to the appropriate state based on the character
+            if (tok != TokenizerState.SKIP) {
+                return tok;
+            }
         }
-        return Token.EOF; // Return the end-of-file token if the character is out of range
     }
 
     /**
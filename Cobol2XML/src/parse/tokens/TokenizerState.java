@@ -24,7 +24,17 @@ package parse.tokens;
 import java.io.*;
 public abstract class TokenizerState {
 /**
- * Return a token that represents a logical piece of a reader.
+ * The token a state returns when it has consumed text that makes
+ * no token, such as whitespace or a comment. A tokenizer that
+ * receives it reads on from the next character, so a run of
+ * whitespace and comments is skipped in a loop rather than by
+ * each state calling back into the tokenizer.
+ */
+public static final Token SKIP = new Token(new TokenType("skip"), "", 0);
+
+/**
+ * Return a token that represents a logical piece of a reader,
+ * or <code>SKIP</code> if the text read makes no token.
  * 
  * @return  a token that represents a logical piece of the 
  *          reader
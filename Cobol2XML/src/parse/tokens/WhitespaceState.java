@@ -31,26 +31,28 @@ public class WhitespaceState extends TokenizerState {
     }
 
     /**
-     * Ignores whitespace (such as blanks and tabs), and returns the tokenizer's next token.
+     * Ignores whitespace (such as blanks and tabs), and returns <code>SKIP</code>
+     * so that the tokenizer goes on to its next token.
      *
      * @param r             a PushbackReader object
      * @param aWhitespaceChar an integer representing a whitespace character
      * @param t             a Tokenizer object
-     * @return the tokenizer's next token
+     * @return SKIP
      * @throws IOException if an I/O error occurs
      */
     public Token nextToken(PushbackReader r, int aWhitespaceChar, Tokenizer t) throws IOException {
+        boolean[] ws = whitespaceChar;
         int c;
         // Read and ignore whitespace characters until a non-whitespace character is encountered
         do {
             c = r.read();
-        } while (c >= 0 && c < whitespaceChar.length && whitespaceChar[c]);
+        } while (c >= 0 && c < ws.length && ws[c]);
 
-        // If a non-whitespace character was encountered, unread it and return the next token
+        // If a non-whitespace character was encountered, unread it for the tokenizer
         if (c >= 0) {
             r.unread(c);
         }
-        return t.nextToken();
+        return SKIP;
     }
 
     /**
@@ -3,6 +3,7 @@ package parse.tokens;
 import java.util.ArrayList;
 import java.util.Random;
 import java.util.Vector;
+import parse.Assembly;
 import parse.Parser;
 
 /**
@@ -32,6 +33,25 @@ public class Word extends Terminal {
         return t.isWord();
     }
 
+    /**
+     * Matches a packed assembly by its type column, without building
+     * the next token unless it is pushed.
+     *
+     * @param in the assembly to match against
+     * @return a copy of the assembly advanced past a word, or null
+     */
+    @Override
+    protected Assembly matchOneAssembly(Assembly in) {
+        if (in instanceof PackedTokenAssembly) {
+            PackedTokenAssembly p = (PackedTokenAssembly) in;
+            if (p.hasMoreElements() && p.tokens().isWord(p.elementsConsumed())) {
+                return p.advance(discard);
+            }
+            return null;
+        }
+        return super.matchOneAssembly(in);
+    }
+
     /**
      * Create a set with one random word (with 3 to 7 characters).
      * This method generates a random word with a length between 3 and 7
@@ -25,6 +25,11 @@ import java.io.PushbackReader;
  * A state for recognizing a word. This class is used to recognize words
  * during lexical analysis in a tokenizer. It maintains character buffers
  * and arrays to keep track of word characters and start characters.
+ * <p>
+ * Given a <code>LexemeArena</code>, the state copies each word into the
+ * arena and returns a <code>LexemeToken</code> that refers to it there,
+ * so no String is made for a word unless something asks for its
+ * <code>sval()</code>.
  *
  * @author Steven J. Metsker
  * @version 1.0.0
@@ -37,6 +42,7 @@ public class WordState<T> extends TokenizerState<T> {
     protected char charbuf[] = new char[16];
     protected boolean wordChar[] = new boolean[256];
     protected boolean wordStartChar[] = new boolean[256];
+    protected LexemeArena arena;
     
     // Constructs a word state with a default idea of what characters are
     // admissible inside a word (as described in the class comment).
@@ -60,13 +66,6 @@ public class WordState<T> extends TokenizerState<T> {
         }
     }
     
-    // Reset the character buffer.
-    protected void resetBuf() {
-        for (int i = 0; i < charbuf.length; i++) {
-            charbuf[i] = 0;
-        }
-    }
-    
     // Get the current character buffer.
     protected char[] getCharbuf() {
         return charbuf;
@@ -77,12 +76,44 @@ public class WordState<T> extends TokenizerState<T> {
         return charbuf.length;
     }
     
-    // Return a word token from a reader.
+    // Get the arena words are sliced from, or null if each word is
+    // made into a String.
+    public LexemeArena getLexemeArena() {
+        return arena;
+    }
+    
+    // Return a word token from a reader. Only the characters of the
+    // word are written, so the buffer need never be cleared.
     public Token<T> nextToken(PushbackReader r, int c, Tokenizer<T> t)
             throws IOException {
-        
-        // Implementation goes here
-        
+        LexemeArena a = arena;
+        if (a != null) {
+            do {
+                a.append((char) c);
+                c = r.read();
+            } while (wordChar(c));
+            if (c >= 0) {
+                r.unread(c);
+            }
+            return a.take(Token.TT_WORD);
+        }
+        int i = 0;
+        do {
+            checkBufLength(i);
+            charbuf[i++] = (char) c;
+            c = r.read();
+        } while (wordChar(c));
+        if (c >= 0) {
+            r.unread(c);
+        }
+        return new Token(Token.TT_WORD, String.copyValueOf(charbuf, 0, i), 0);
+    }
+    
+    // Set the arena to slice words from, or null to make each word
+    // into a String.
+    public WordState<T> setLexemeArena(LexemeArena arena) {
+        this.arena = arena;
+        return this;
     }
     
     // Set the word characters for the given range.
@@ -92,6 +123,11 @@ public class WordState<T> extends TokenizerState<T> {
         }
     }
     
+    // Return true if the given character may appear in a word.
+    protected boolean wordChar(int c) {
+        return c >= 0 && c < wordChar.length && wordChar[c];
+    }
+    
     // Set the word start characters based on the word character array.
     protected void setWordStartChars(boolean wordStartChar[]) {
         for (int i = 0; i < wordStartChar.length; i++) {
@@ -22,6 +22,7 @@
 package utensil;
 
 import java.io.*;
+import java.nio.charset.Charset;
 
 /**
  * The FileString class provides a method for reading the contents of a file
@@ -62,4 +63,19 @@ public class FileString {
             throw new IOException(e); // wrap other exceptions in IOException
         }
     }
+
+    /**
+     * The readerFromFileNamed method returns a reader over the contents
+     * of a file without first copying them into a String. The file is
+     * memory-mapped and decoded with the named charset, for example
+     * "US-ASCII" or "IBM037" for EBCDIC members.
+     *
+     * @param fileName the name of the file to read
+     * @param charsetName the name of the charset the file is encoded in
+     * @return a reader over the contents of the file
+     * @throws IOException if the file is not found, or cannot be mapped
+     */
+    public static Reader readerFromFileNamed(String fileName, String charsetName) throws IOException {
+        return new MappedFileReader(fileName, Charset.forName(charsetName));
+    }
 }
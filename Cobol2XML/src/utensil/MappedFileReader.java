@@ -0,0 +1,217 @@
+/*
+ * @(#)MappedFileReader.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package utensil;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A MappedFileReader reads characters from a memory-mapped file.
+ * <p>
+ * The file is mapped a window at a time and decoded through a
+ * <code>CharsetDecoder</code> into a small, reused character
+ * buffer, so the contents of the file are never copied into a
+ * <code>String</code> and heap use does not grow with the size of
+ * the file. Supply an EBCDIC charset such as <code>IBM037</code>
+ * to read members transferred from a host in binary.
+ * <p>
+ * Unlike most readers, this class does not synchronize. An instance
+ * belongs to the single tokenizer that reads from it.
+ */
+public class MappedFileReader extends Reader {
+
+    /*
+     * The largest region of the file mapped at once
+     */
+    protected static final int WINDOW = 1 << 26;
+
+    /*
+     * The number of decoded characters held at once
+     */
+    protected static final int CHARBUF_LEN = 8192;
+
+    protected FileChannel channel;
+    protected long size;
+    protected long windowStart;
+    protected ByteBuffer bytes;
+    protected CharBuffer chars;
+    protected CharsetDecoder decoder;
+
+    /*
+     * True once the decoder has been flushed; every read after that
+     * returns -1 without decoding again
+     */
+    protected boolean eof;
+
+    /**
+     * Constructs a reader over the named file, decoding it with the
+     * platform's default charset, as <code>FileReader</code> does.
+     *
+     * @param fileName the name of the file to read
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedFileReader(String fileName) throws IOException {
+        this(fileName, Charset.defaultCharset());
+    }
+
+    /**
+     * Constructs a reader over the named file, decoding it with the
+     * given charset.
+     *
+     * @param fileName the name of the file to read
+     * @param charset the charset the file is encoded in
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedFileReader(String fileName, Charset charset) throws IOException {
+        channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        size = channel.size();
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        chars = CharBuffer.allocate(CHARBUF_LEN);
+        chars.flip();
+        map(0);
+    }
+
+    /**
+     * Closes the underlying channel. The mapped window is released
+     * when it is next garbage collected.
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        bytes = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /*
+     * Decode the next run of characters into the character buffer,
+     * mapping the next window of the file as each one is used up.
+     * Returns false at the end of the file, and on every call after.
+     */
+    protected boolean fill() throws IOException {
+        if (channel == null) {
+            throw new IOException("Reader closed");
+        }
+        if (eof) {
+            return false;
+        }
+        chars.clear();
+        while (true) {
+            boolean last = isLastWindow();
+            CoderResult cr = decoder.decode(bytes, chars, last);
+            if (cr.isError()) {
+                cr.throwException();
+            }
+            if (chars.position() > 0) {
+                break;
+            }
+            if (last) {
+                decoder.flush(chars);
+                eof = true;
+                break;
+            }
+            map(windowStart + bytes.position());
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    /*
+     * Returns true if the current window reaches the end of the file.
+     */
+    protected boolean isLastWindow() {
+        return windowStart + bytes.limit() >= size;
+    }
+
+    /*
+     * Map the window of the file that begins at the given offset.
+     * Any bytes left over from the previous window, such as the
+     * front of a split multibyte character, are mapped again.
+     */
+    protected void map(long offset) throws IOException {
+        windowStart = offset;
+        long len = Math.min(WINDOW, size - offset);
+        bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset, len);
+    }
+
+    /**
+     * Reads a single character.
+     *
+     * @return the character read, or -1 at the end of the file
+     * @throws IOException if there is any problem reading
+     */
+    @Override
+    public int read() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return chars.get();
+    }
+
+    /**
+     * Reads characters into a portion of an array.
+     *
+     * @param cbuf the destination buffer
+     * @param off the offset at which to start storing characters
+     * @param len the maximum number of characters to read
+     * @return the number of characters read, or -1 at the end of
+     *         the file
+     * @throws IOException if there is any problem reading
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, chars.remaining());
+        chars.get(cbuf, off, n);
+        return n;
+    }
+
+    /**
+     * Tells whether a character can be read without mapping the
+     * next window of the file.
+     *
+     * @return true, if decoded characters are waiting
+     */
+    @Override
+    public boolean ready() {
+        return chars.hasRemaining();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * @(#)MappedFileReaderTester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+
+package utensil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A MappedFileReaderTester checks that a <code>MappedFileReader</code>
+ * reads what is in a file, and goes on returning -1 when it is read
+ * again after the end of the file, as a tokenizer does after
+ * whitespace or a word that ends the file.
+ * <p>
+ * It writes some small files, including an empty one, one ending in
+ * whitespace and one without a trailing newline, and reads each a
+ * character at a time through a <code>PushbackReader</code>, in
+ * blocks, and by lines. The tester exits with status 1 if any check
+ * fails.
+ */
+public class MappedFileReaderTester {
+
+    /*
+     * The number of extra reads to make after the end of a file
+     */
+    protected static final int READS_PAST_EOF = 3;
+
+    protected int checks;
+    protected int failures;
+
+    /*
+     * Count a check, and report it if it failed.
+     */
+    protected void check(boolean ok, String what) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+
+    /**
+     * Reads a file with the given contents in each way, and checks
+     * what is read.
+     *
+     * @param contents the contents of the file
+     * @param charset the charset to write and read the file in
+     * @throws IOException if the file cannot be written or read
+     */
+    public void test(String contents, Charset charset) throws IOException {
+        Path p = Files.createTempFile("mapped", ".cbl");
+        try {
+            Files.write(p, contents.getBytes(charset));
+            String name = p.toString();
+            String label = "\"" + contents.replace("\n", "\\n") + "\" in " + charset;
+
+            PushbackReader r = new PushbackReader(new MappedFileReader(name, charset), 4);
+            try {
+                StringBuilder sb = new StringBuilder();
+                int c;
+                while ((c = r.read()) >= 0) {
+                    sb.append((char) c);
+                }
+                check(sb.toString().equals(contents), "read() of " + label);
+                for (int i = 0; i < READS_PAST_EOF; i++) {
+                    check(r.read() == -1, "read() past the end of " + label);
+                }
+            } finally {
+                r.close();
+            }
+
+            MappedFileReader m = new MappedFileReader(name, charset);
+            try {
+                StringBuilder sb = new StringBuilder();
+                char[] buf = new char[3];
+                int n;
+                while ((n = m.read(buf, 0, buf.length)) >= 0) {
+                    sb.append(buf, 0, n);
+                }
+                check(sb.toString().equals(contents), "read(char[]) of " + label);
+                for (int i = 0; i < READS_PAST_EOF; i++) {
+                    check(m.read(buf, 0, buf.length) == -1, "read(char[]) past the end of " + label);
+                    check(m.read() == -1, "read() after read(char[]) past the end of " + label);
+                }
+            } finally {
+                m.close();
+            }
+
+            BufferedReader br = new BufferedReader(new MappedFileReader(name, charset));
+            try {
+                StringBuilder sb = new StringBuilder();
+                String line;
+                while ((line = br.readLine()) != null) {
+                    sb.append(line).append('\n');
+                }
+                String expected = contents.isEmpty() || contents.endsWith("\n")
+                        ? contents : contents + "\n";
+                check(sb.toString().equals(expected), "readLine() of " + label);
+                check(br.readLine() == null, "readLine() past the end of " + label);
+            } finally {
+                br.close();
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    /**
+     * Runs the checks.
+     *
+     * @param args ignored
+     * @throws IOException if a file cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        MappedFileReaderTester tester = new MappedFileReaderTester();
+        String[] contents = {
+            "",
+            " ",
+            "program-id. hello.\n",
+            "program-id. hello.   ",
+            "program-id. hello.",
+            "       identification division.\n       program-id. hello.\n"
+        };
+        Charset[] charsets = { StandardCharsets.UTF_8, Charset.forName("IBM037") };
+        for (Charset cs : charsets) {
+            for (String s : contents) {
+                tester.test(s, cs);
+            }
+        }
+        System.out.println(tester.checks + " checks, " + tester.failures + " failures");
+        if (tester.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * @(#)XXHash64.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package utensil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * XXHash64 computes the 64-bit xxHash of a sequence of bytes.
+ * <p>
+ * xxHash is not a cryptographic hash, but it is very fast, reading
+ * eight bytes at a time, and spreads its values well; it suits
+ * telling whether the content of a file has changed. An instance
+ * hashes bytes as they are given to <code>update()</code>, so a file
+ * can be hashed a window at a time; <code>hash()</code> hashes a
+ * whole array, string or file at once.
+ */
+public class XXHash64 {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    /*
+     * The largest region of a file mapped at once
+     */
+    protected static final int WINDOW = 1 << 26;
+
+    protected final long seed;
+    protected long v1;
+    protected long v2;
+    protected long v3;
+    protected long v4;
+    protected long total;
+
+    /*
+     * Bytes given that do not yet fill a 32-byte stripe
+     */
+    protected final byte[] memory = new byte[32];
+    protected int memorySize;
+
+    /**
+     * Constructs a hash with a seed of zero.
+     */
+    public XXHash64() {
+        this(0);
+    }
+
+    /**
+     * Constructs a hash with the given seed. Hashes of the same bytes
+     * with different seeds are unrelated.
+     *
+     * @param seed the seed
+     */
+    public XXHash64(long seed) {
+        this.seed = seed;
+        v1 = seed + P1 + P2;
+        v2 = seed + P2;
+        v3 = seed;
+        v4 = seed - P1;
+    }
+
+    /**
+     * Returns the hash of the given bytes.
+     *
+     * @param b the bytes
+     * @param off the index of the first byte to hash
+     * @param len the number of bytes to hash
+     * @param seed the seed
+     * @return the hash of the bytes
+     */
+    public static long hash(byte[] b, int off, int len, long seed) {
+        return new XXHash64(seed).update(ByteBuffer.wrap(b, off, len)).digest();
+    }
+
+    /**
+     * Returns the hash of a string's UTF-8 encoding.
+     *
+     * @param s the string
+     * @param seed the seed
+     * @return the hash of the string
+     */
+    public static long hash(String s, long seed) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        return hash(b, 0, b.length, seed);
+    }
+
+    /**
+     * Returns the hash of a file's content. The file is mapped into
+     * memory a window at a time rather than read.
+     *
+     * @param file the file
+     * @param seed the seed
+     * @return the hash of the file's content
+     * @throws IOException if the file cannot be read
+     */
+    public static long hash(Path file, long seed) throws IOException {
+        XXHash64 h = new XXHash64(seed);
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = fc.size();
+            for (long pos = 0; pos < size; pos += WINDOW) {
+                h.update(fc.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos)));
+            }
+        }
+        return h.digest();
+    }
+
+    /**
+     * Adds the remaining bytes of a buffer to the hash. The buffer's
+     * position is left where it was.
+     *
+     * @param in the bytes to add
+     * @return this
+     */
+    public XXHash64 update(ByteBuffer in) {
+        ByteBuffer b = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        total += b.remaining();
+        if (memorySize > 0) {
+            int n = Math.min(32 - memorySize, b.remaining());
+            b.get(memory, memorySize, n);
+            memorySize += n;
+            if (memorySize < 32) {
+                return this;
+            }
+            stripe(ByteBuffer.wrap(memory).order(ByteOrder.LITTLE_ENDIAN));
+            memorySize = 0;
+        }
+        while (b.remaining() >= 32) {
+            stripe(b);
+        }
+        memorySize = b.remaining();
+        b.get(memory, 0, memorySize);
+        return this;
+    }
+
+    /**
+     * Returns the hash of the bytes added so far.
+     *
+     * @return the hash
+     */
+    public long digest() {
+        long h;
+        if (total >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = seed + P5;
+        }
+        h += total;
+        ByteBuffer b = ByteBuffer.wrap(memory, 0, memorySize).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.remaining() >= 8) {
+            h ^= round(0, b.getLong());
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (b.remaining() >= 4) {
+            h ^= (b.getInt() & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+        }
+        while (b.hasRemaining()) {
+            h ^= (b.get() & 0xFF) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /*
+     * Mix one 32-byte stripe into the accumulators.
+     */
+    private void stripe(ByteBuffer b) {
+        v1 = round(v1, b.getLong());
+        v2 = round(v2, b.getLong());
+        v3 = round(v3, b.getLong());
+        v4 = round(v4, b.getLong());
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long merge(long h, long v) {
+        h ^= round(0, v);
+        return h * P1 + P4;
+    }
+}
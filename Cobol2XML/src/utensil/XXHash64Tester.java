@@ -0,0 +1,143 @@
+/*
+ * @(#)XXHash64Tester.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package utensil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * An XXHash64Tester checks that <code>XXHash64</code> gives the
+ * published xxHash64 values, and gives the same value however the
+ * bytes are fed to it.
+ * <p>
+ * It hashes the reference inputs, from the empty string to strings
+ * longer than a 32-byte stripe, with and without a seed, and
+ * compares each hash with the reference value. It then hashes random
+ * arrays whole, in random pieces, and as files, and checks that the
+ * three agree. The tester exits with status 1 if any check fails.
+ */
+public class XXHash64Tester {
+
+    /*
+     * Reference inputs, their seeds, and their published hashes
+     */
+    protected static final String[] INPUTS = {
+        "",
+        "a",
+        "abc",
+        "Nobody inspects the spammish repetition",
+        "The quick brown fox jumps over the lazy dog",
+        "xxhash"
+    };
+    protected static final long[] SEEDS = { 0, 0, 0, 0, 0, 20141025 };
+    protected static final long[] HASHES = {
+        0xEF46DB3751D8E999L,
+        0xD24EC4F1A98C6E5BL,
+        0x44BC2CF5AD770999L,
+        0xFBCEA83C8A378BF1L,
+        0x0B242D361FDA71BCL,
+        0xB559B98D844E0635L
+    };
+
+    protected int checks;
+    protected int failures;
+
+    /*
+     * Count a check, and report it if it failed.
+     */
+    protected void check(boolean ok, String what) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+
+    /**
+     * Checks the hash of each reference input.
+     */
+    public void testReference() {
+        for (int i = 0; i < INPUTS.length; i++) {
+            long h = XXHash64.hash(INPUTS[i], SEEDS[i]);
+            check(h == HASHES[i], "hash of \"" + INPUTS[i] + "\" with seed " + SEEDS[i] + " is "
+                    + String.format("%016x", h) + ", not " + String.format("%016x", HASHES[i]));
+        }
+    }
+
+    /**
+     * Hashes an array whole, in random pieces, and as a file, and
+     * checks that the hashes agree.
+     *
+     * @param b the bytes to hash
+     * @param random the source of the pieces
+     * @throws IOException if the file cannot be written or read
+     */
+    public void testPieces(byte[] b, Random random) throws IOException {
+        long seed = random.nextLong();
+        long whole = XXHash64.hash(b, 0, b.length, seed);
+        XXHash64 h = new XXHash64(seed);
+        int pos = 0;
+        while (pos < b.length) {
+            int n = Math.min(b.length - pos, random.nextInt(70));
+            ByteBuffer buf = ByteBuffer.wrap(b, pos, n);
+            h.update(buf);
+            check(buf.position() == pos, "update() moved the buffer's position");
+            pos += n;
+        }
+        check(h.digest() == whole, "hash of " + b.length + " bytes in pieces");
+        Path p = Files.createTempFile("xxhash", ".bin");
+        try {
+            Files.write(p, b);
+            check(XXHash64.hash(p, seed) == whole, "hash of a file of " + b.length + " bytes");
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    /**
+     * Runs the checks.
+     *
+     * @param args ignored
+     * @throws IOException if a file cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        XXHash64Tester tester = new XXHash64Tester();
+        tester.testReference();
+        byte[] ab = "abc".getBytes(StandardCharsets.UTF_8);
+        tester.check(XXHash64.hash(ab, 0, ab.length, 1) != XXHash64.hash(ab, 0, ab.length, 0),
+                "hashes with different seeds are the same");
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            byte[] b = new byte[random.nextInt(300)];
+            random.nextBytes(b);
+            tester.testPieces(b, random);
+        }
+        System.out.println(tester.checks + " checks, " + tester.failures + " failures");
+        if (tester.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * @(#)CobolPayload.java	 0.1.0
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package xmlwriter;
+
+import cobol.Cobol;
+
+/**
+ * A CobolPayload receives the Cobol targets the parser assembles, one
+ * statement at a time, and turns them into XML.
+ */
+public interface CobolPayload {
+
+    /**
+     * Adds XML elements for the data in the given Cobol object.
+     *
+     * @param c Cobol object containing the data for the XML document
+     */
+    void addElements(Cobol c);
+}
@@ -42,7 +42,7 @@ import java.util.logging.Logger;
 /**
  * XMLPayload class is used to create a XML document by adding Cobol elements.
  */
-public class XMLPayload {
+public class XMLPayload implements CobolPayload {
     Document doc;
     Element rootElement;
     private final static Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
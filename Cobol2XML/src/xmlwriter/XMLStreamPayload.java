@@ -0,0 +1,174 @@
+/*
+ * @(#)XMLStreamPayload.java	 0.1.0
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package xmlwriter;
+
+import cobol.Cobol;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import java.util.logging.Logger;
+
+/**
+ * XMLStreamPayload writes the same document as XMLPayload, but writes
+ * each element as soon as it is added rather than building a DOM tree
+ * and transforming it at the end. Memory use does not grow with the
+ * size of the program.
+ * <p>
+ * The document is complete only once the payload is closed.
+ */
+public class XMLStreamPayload implements CobolPayload, Closeable {
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+    private final static Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final OutputStream out;
+    private final XMLStreamWriter writer;
+    private XMLStreamException failure;
+    private boolean closed;
+
+    /**
+     * Constructs a payload that writes to the named file.
+     *
+     * @param fileName the file to write the document to
+     * @throws IOException if the file cannot be opened
+     */
+    public XMLStreamPayload(String fileName) throws IOException {
+        this(new BufferedOutputStream(new FileOutputStream(fileName), 64 * 1024));
+    }
+
+    /**
+     * Constructs a payload that writes to the given stream, starting
+     * the document with a root element named "cobol". The stream is
+     * closed when the payload is.
+     *
+     * @param out the stream to write the document to
+     * @throws IOException if the document cannot be started
+     */
+    public XMLStreamPayload(OutputStream out) throws IOException {
+        this.out = out;
+        try {
+            writer = FACTORY.createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("cobol");
+        } catch (XMLStreamException e) {
+            out.close();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Adds Cobol elements to the document based on the provided Cobol
+     * object, writing them out straight away.
+     *
+     * @param c Cobol object containing the data for the XML document
+     */
+    public void addElements(Cobol c) {
+        addElement("sectionName", c.getSectionName());
+        addElement("divisionName", c.getDivisionName());
+        addElement("Program_ID", c.getProgram_ID());
+        addDateWrittenElements(c.getDayDateWritten(), c.getMonthDateWritten(), c.getYearDateWritten());
+    }
+
+    /**
+     * Writes a Cobol element.
+     *
+     * @param elementName Name of the Cobol element
+     * @param elementValue Value of the Cobol element
+     */
+    private void addElement(String elementName, String elementValue) {
+        if (elementValue == null) {
+            // Logs a warning if the value is null
+            LOGGER.warning("Null value for element: " + elementName);
+            return;
+        }
+        if (failure != null) {
+            return;
+        }
+        try {
+            writer.writeCharacters("\n    ");
+            writer.writeStartElement(elementName);
+            writer.writeCharacters(elementValue);
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            // Remembered, and reported when the payload is closed
+            failure = e;
+        }
+    }
+
+    /**
+     * Writes DateWritten elements.
+     *
+     * @param dayDateWritten Day of the date
+     * @param monthDateWritten Month of the date
+     * @param yearDateWritten Year of the date
+     */
+    private void addDateWrittenElements(int dayDateWritten, String monthDateWritten, int yearDateWritten) {
+        if (dayDateWritten != 0) {
+            addElement("day-date-written", String.valueOf(dayDateWritten));
+        }
+        if (monthDateWritten != null) {
+            addElement("month-date-written", monthDateWritten);
+        }
+        if (yearDateWritten != 0) {
+            addElement("year-date-written", String.valueOf(yearDateWritten));
+        }
+    }
+
+    /**
+     * Ends the document and closes the underlying stream.
+     *
+     * @throws IOException if any element, or the end of the document,
+     *         could not be written
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (failure == null) {
+                writer.writeCharacters("\n");
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.flush();
+            }
+            writer.close();
+        } catch (XMLStreamException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        } finally {
+            out.close();
+        }
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * @(#)ParserBenchmark.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import cobol.CobolParser;
+import parse.Assembly;
+import parse.Parser;
+import parse.tokens.TokenAssembly;
+import parse.tokens.Tokenizer;
+
+/**
+ * Measures <code>CobolParser.start().bestMatch()</code> over programs
+ * of 1K, 100K and 1M lines, matching a line at a time as the
+ * converter does. Tokenizing is included, as it is in a conversion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int lines;
+
+    private String[] program;
+    private Parser parser;
+    private Tokenizer tokenizer;
+
+    @Setup
+    public void setUp() {
+        program = SyntheticProgram.lines(lines);
+        parser = CobolParser.start();
+        tokenizer = CobolParser.tokenizer();
+    }
+
+    @Benchmark
+    public void bestMatch(Blackhole bh) {
+        for (String s : program) {
+            tokenizer.setString(s);
+            Assembly out = parser.bestMatch(new TokenAssembly(tokenizer));
+            bh.consume(out);
+        }
+    }
+}
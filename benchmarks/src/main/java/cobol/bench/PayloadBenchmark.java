@@ -0,0 +1,110 @@
+/*
+ * @(#)PayloadBenchmark.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cobol.Cobol;
+import xmlwriter.XMLPayload;
+import xmlwriter.XMLStreamPayload;
+
+/**
+ * Measures turning parsed statements into an XML file, with the DOM
+ * payload the converter uses and with the streaming payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PayloadBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int statements;
+
+    private Cobol[] cobols;
+    private File target;
+
+    @Setup
+    public void setUp() throws IOException {
+        cobols = new Cobol[statements];
+        for (int i = 0; i < statements; i++) {
+            Cobol c = new Cobol();
+            switch (i % 4) {
+            case 0:
+                c.setDivisionName("identification");
+                break;
+            case 1:
+                c.setProgram_ID("base_jb");
+                break;
+            case 2:
+                c.setDayDateWritten(7);
+                c.setMonthDateWritten("jul");
+                c.setYearDateWritten(1995);
+                break;
+            default:
+                c.setSectionName("working-storage");
+            }
+            cobols[i] = c;
+        }
+        target = File.createTempFile("payload", ".xml");
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.delete();
+    }
+
+    @Benchmark
+    public void dom() {
+        XMLPayload xmlp = new XMLPayload();
+        for (Cobol c : cobols) {
+            xmlp.addElements(c);
+        }
+        xmlp.writeFile(target.getPath());
+    }
+
+    @Benchmark
+    public void stream() throws IOException {
+        try (XMLStreamPayload xmlp = new XMLStreamPayload(target.getPath())) {
+            for (Cobol c : cobols) {
+                xmlp.addElements(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * @(#)SyntheticProgram.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol.bench;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import cobol.CobolCorpusGenerator;
+
+/**
+ * SyntheticProgram makes COBOL programs of a given number of lines for
+ * the benchmarks, with a <code>CobolCorpusGenerator</code> and a fixed
+ * seed, so every run measures the same programs.
+ */
+public class SyntheticProgram {
+
+    /**
+     * Returns a generator for a program of the given length.
+     *
+     * @param n the number of lines
+     * @return a generator for the program
+     */
+    public static CobolCorpusGenerator generator(int n) {
+        return new CobolCorpusGenerator().setLines(n).setSeed(CobolCorpusGenerator.DEFAULT_SEED);
+    }
+
+    /**
+     * Returns the lines of a program of the given length.
+     *
+     * @param n the number of lines
+     * @return the lines of the program
+     */
+    public static String[] lines(int n) {
+        return text(n).split("\n");
+    }
+
+    /**
+     * Returns the text of a program of the given length.
+     *
+     * @param n the number of lines
+     * @return the text of the program
+     */
+    public static String text(int n) {
+        StringWriter w = new StringWriter(n * 40);
+        try {
+            generator(n).generate(w);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return w.toString();
+    }
+
+    /**
+     * Writes a program of the given length to a temporary file.
+     *
+     * @param n the number of lines
+     * @return the file written
+     * @throws IOException if the file cannot be written
+     */
+    public static Path write(int n) throws IOException {
+        Path p = Files.createTempFile("synthetic", ".cbl");
+        p.toFile().deleteOnExit();
+        generator(n).write(p);
+        return p;
+    }
+}
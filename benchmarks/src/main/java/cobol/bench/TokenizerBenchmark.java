@@ -0,0 +1,88 @@
+/*
+ * @(#)TokenizerBenchmark.java	 0.0.1
+ *
+ * Copyright (c) 2019 Julian M. Bass
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ */
+
+package cobol.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import cobol.CobolParser;
+import parse.tokens.ExactNumberState;
+import parse.tokens.Token;
+import parse.tokens.Tokenizer;
+
+/**
+ * Measures how fast the COBOL tokenizer turns a program's text into
+ * tokens. Each operation tokenizes the whole program, so the score
+ * divided by the line count gives the time per line. The "exact"
+ * runs lex numbers as DecimalTokens rather than doubles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({ "1000" })
+    public int lines;
+
+    @Param({ "double", "exact" })
+    public String numbers;
+
+    private String text;
+    private Tokenizer tokenizer;
+
+    @Setup
+    public void setUp() {
+        text = SyntheticProgram.text(lines);
+        tokenizer = CobolParser.tokenizer();
+        if (numbers.equals("exact")) {
+            ExactNumberState.install(tokenizer);
+        }
+    }
+
+    @Benchmark
+    public int nextToken(Blackhole bh) throws IOException {
+        tokenizer.setString(text);
+        int count = 0;
+        Token t;
+        while ((t = tokenizer.nextToken()) != Token.EOF) {
+            bh.consume(t);
+            count++;
+        }
+        return count;
+    }
+}